@@ -0,0 +1,71 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The work an earlier attempt at a batch import completed before it was interrupted,
+ * so that a resumed run can skip the rows already loaded and finish the tasks already created.
+ */
+public class BatchImportCheckpoint {
+
+	private Map<Long, String> sctidsCreated = new HashMap<>();
+	private Map<Long, String> taskKeys = new HashMap<>();
+	private Set<String> tasksCreated = new LinkedHashSet<>();
+	//The task each row was batched onto, whether or not it went on to load
+	private Map<Long, String> assignedTasks = new HashMap<>();
+	//Tasks already handed over to their author, which must not be loaded onto or reassigned again
+	private Set<String> tasksCompleted = new HashSet<>();
+
+	public void taskCreated(String taskKey, Collection<Long> recordNumbers) {
+		tasksCreated.add(taskKey);
+		for (Long recordNumber : recordNumbers) {
+			assignedTasks.put(recordNumber, taskKey);
+		}
+	}
+
+	public void rowLoaded(long recordNumber, String sctidCreated, String taskKey) {
+		sctidsCreated.put(recordNumber, sctidCreated);
+		taskKeys.put(recordNumber, taskKey);
+	}
+
+	public void taskCompleted(String taskKey) {
+		tasksCompleted.add(taskKey);
+	}
+
+	public boolean isCompleted(String taskKey) {
+		return tasksCompleted.contains(taskKey);
+	}
+
+	public boolean isLoaded(long recordNumber) {
+		return sctidsCreated.containsKey(recordNumber);
+	}
+
+	public String getSctidCreated(long recordNumber) {
+		return sctidsCreated.get(recordNumber);
+	}
+
+	public String getTaskKey(long recordNumber) {
+		return taskKeys.get(recordNumber);
+	}
+
+	/**
+	 * @return the task the row was batched onto, or null if it was never batched.
+	 * Rows of the same tree are always batched onto the same task.
+	 */
+	public String getAssignedTask(long recordNumber) {
+		return assignedTasks.get(recordNumber);
+	}
+
+	public int getRowsLoaded() {
+		return sctidsCreated.size();
+	}
+
+	public Set<String> getTasksCreated() {
+		return tasksCreated;
+	}
+}
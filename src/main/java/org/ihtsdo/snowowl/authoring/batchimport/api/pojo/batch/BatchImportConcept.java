@@ -1,7 +1,13 @@
 package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.csv.CSVRecord;
 import org.ihtsdo.otf.rest.exception.BusinessServiceException;
@@ -23,7 +29,8 @@ public class BatchImportConcept {
 
 	private boolean requiresNewSCTID = false;
 	
-	private List<BatchImportConcept> children = new ArrayList<>();
+	//Insertion ordered, so children load in file order, but removable without a scan
+	private Set<BatchImportConcept> children = new LinkedHashSet<>();
 	
 	public BatchImportConcept(String sctid, List<String> parents, CSVRecord row, boolean requiresNewSCTID) {
 		this.sctid = sctid;
@@ -92,23 +99,23 @@ public class BatchImportConcept {
 		parents.add(parentSCTID);
 	}
 
-	public final List<BatchImportConcept> getChildren() {
+	public final Collection<BatchImportConcept> getChildren() {
 		return children;
 	}
 
-	public int childrenCount() {
-		int childCount = children.size();
-		//And add the count of the children's children
-		for (BatchImportConcept thisChild : children) {
-			childCount += thisChild.childrenCount();
-		}
-		return childCount;
-	}
-
 	public void addDescendants(List<BatchImportConcept> thisBatch) {
-		for (BatchImportConcept thisChild : children) {
-			thisBatch.add(thisChild);
-			thisChild.addDescendants(thisBatch);
+		//Depth first, each concept ahead of its own descendants.  Iterative as hierarchies can run deep.
+		Deque<Iterator<BatchImportConcept>> stack = new ArrayDeque<>();
+		stack.push(children.iterator());
+		while (!stack.isEmpty()) {
+			Iterator<BatchImportConcept> siblings = stack.peek();
+			if (siblings.hasNext()) {
+				BatchImportConcept thisChild = siblings.next();
+				thisBatch.add(thisChild);
+				stack.push(thisChild.children.iterator());
+			} else {
+				stack.pop();
+			}
 		}
 	}
 	
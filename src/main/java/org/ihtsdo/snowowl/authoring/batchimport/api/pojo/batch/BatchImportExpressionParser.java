@@ -0,0 +1,294 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ihtsdo.otf.rest.client.snowowl.pojo.DefinitionStatus;
+import org.ihtsdo.otf.rest.exception.ProcessingException;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportService;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.VerhoeffCheck;
+
+/**
+ * Single pass parser for batch import expressions.  Human readable terms and spaces
+ * are skipped as the expression is read, so the source is never copied and each
+ * character is visited once. Only the identifiers themselves are extracted.
+ */
+class BatchImportExpressionParser {
+
+	private static final int EOF = -1;
+	private static final char SPACE = BatchImportExpression.SPACE;
+	private static final char PIPE = BatchImportExpression.PIPE_CHAR;
+	private static final char[] TERM_TERMINATORS = BatchImportExpression.termTerminators;
+	private static final char REFINEMENT = ':';
+	private static final char FOCUS_CONCEPT_SEPARATOR = '+';
+	private static final char ATTRIBUTE_SEPARATOR = ',';
+	private static final char TYPE_SEPARATOR = '=';
+
+	private final CharSequence source;
+	private final int length;
+	private final String moduleId;
+
+	//Reused for every identifier read
+	private final StringBuilder type = new StringBuilder();
+	private final StringBuilder value = new StringBuilder();
+
+	//The next significant character and its position in the source
+	private int la;
+	private int laPos;
+	private int pos = 0;
+	private boolean groupCloseSeen = false;
+
+	private BatchImportExpressionParser(CharSequence source, String moduleId) {
+		this.source = source;
+		this.length = source.length();
+		this.moduleId = moduleId;
+	}
+
+	static BatchImportExpression parse(CharSequence expression, String moduleId) throws ProcessingException {
+		BatchImportExpressionParser parser = new BatchImportExpressionParser(expression, moduleId);
+		parser.consume();
+		DefinitionStatus definitionStatus = parser.parseDefinitionStatus();
+		List<String> focusConcepts = parser.parseFocusConcepts();
+		List<BatchImportGroup> attributeGroups = parser.parseGroups();
+		return new BatchImportExpression(definitionStatus, focusConcepts, attributeGroups);
+	}
+
+	private DefinitionStatus parseDefinitionStatus() throws ProcessingException {
+		int statusChar = la;
+		if (statusChar == BatchImportExpression.FULLY_DEFINED.charAt(0) || statusChar == BatchImportExpression.PRIMITVE.charAt(0)) {
+			for (int i = 0; i < BatchImportExpression.FULLY_DEFINED.length(); i++) {
+				if (la != statusChar) {
+					throw new ProcessingException("Unable to determine Definition Status from: " + source);
+				}
+				consume();
+			}
+			return statusChar == BatchImportExpression.FULLY_DEFINED.charAt(0) ? DefinitionStatus.FULLY_DEFINED : DefinitionStatus.PRIMITIVE;
+		}
+		throw new ProcessingException("Unable to determine Definition Status from: " + source);
+	}
+
+	private List<String> parseFocusConcepts() {
+		List<String> focusConcepts = new ArrayList<>();
+		boolean focusEmpty = true;
+		type.setLength(0);
+		while (la != EOF && la != REFINEMENT && la != BatchImportExpression.GROUP_START_CHAR) {
+			focusEmpty = false;
+			if (la == FOCUS_CONCEPT_SEPARATOR) {
+				focusConcepts.add(type.toString());
+				type.setLength(0);
+			} else {
+				type.append((char) la);
+			}
+			consume();
+		}
+		focusConcepts.add(type.toString());
+		if (!focusEmpty) {
+			//As per String.split, trailing empty concepts are dropped
+			while (!focusConcepts.isEmpty() && focusConcepts.get(focusConcepts.size() - 1).isEmpty()) {
+				focusConcepts.remove(focusConcepts.size() - 1);
+			}
+		}
+		if (la == REFINEMENT) {
+			consume();
+		}
+		return focusConcepts;
+	}
+
+	private List<BatchImportGroup> parseGroups() throws ProcessingException {
+		List<BatchImportGroup> groups = new ArrayList<>();
+		if (la == EOF) {
+			return groups;
+		} else if (la == BatchImportExpression.GROUP_START_CHAR) {
+			parseBracedGroups(groups, false);
+		} else if (Character.isDigit(la)) {
+			//A block of ungrouped attributes, optionally followed by bracketed groups
+			int ungroupedStart = laPos;
+			BatchImportGroup ungrouped = parseGroup(0, false);
+			if (la == BatchImportExpression.GROUP_END_CHAR) {
+				throw new ProcessingException("Unable to separate grouped from ungrouped attributes in: " + source.subSequence(ungroupedStart, length));
+			}
+			groups.add(ungrouped);
+			if (la == BatchImportExpression.GROUP_START_CHAR) {
+				parseBracedGroups(groups, true);
+			}
+		} else {
+			throw new ProcessingException("Unable to parse attributes groups from: " + source.subSequence(laPos, length));
+		}
+		return groups;
+	}
+
+	private void parseBracedGroups(List<BatchImportGroup> groups, boolean closeRequired) throws ProcessingException {
+		int bracedStart = laPos;
+		consume();
+		boolean contentSeen = false;
+		int pendingEmptyGroups = 0;
+		int emptyGroupStart = -1;
+		int groupNumber = 0;
+		while (true) {
+			int groupStart = laPos;
+			BatchImportGroup group = parseGroup(groupNumber + 1, true);
+			if (group == null) {
+				//Empty groups are only tolerated at the end of the expression
+				if (pendingEmptyGroups++ == 0) {
+					emptyGroupStart = groupStart;
+				}
+			} else if (pendingEmptyGroups > 0) {
+				throw new ProcessingException("Unable to detect type=value in attribute: " + source.subSequence(emptyGroupStart, laPos));
+			} else {
+				groups.add(group);
+				groupNumber++;
+				contentSeen = true;
+			}
+			if (la != BatchImportExpression.GROUP_START_CHAR) {
+				break;
+			}
+			contentSeen = true;
+			consume();
+		}
+		if (!contentSeen) {
+			throw new ProcessingException("Unable to detect type=value in attribute: " + source.subSequence(bracedStart, laPos));
+		}
+		if (closeRequired && !groupCloseSeen) {
+			throw new ProcessingException("Unable to separate grouped from ungrouped attributes in: " + source.subSequence(bracedStart, length));
+		}
+	}
+
+	/**
+	 * @return the group, or null if the group holds no content at all.
+	 */
+	private BatchImportGroup parseGroup(int groupNumber, boolean braced) throws ProcessingException {
+		BatchImportGroup group = new BatchImportGroup(groupNumber);
+		boolean groupEmpty = true;
+		int attributeNumber = 0;
+		int pendingEmptyAttributes = 0;
+		int emptyAttributeStart = -1;
+		while (!isGroupEnd(braced)) {
+			int attributeStart = laPos;
+			boolean attributeEmpty = true;
+			boolean surplusParts = false;
+			int part = 0;
+			type.setLength(0);
+			value.setLength(0);
+			while (!isGroupEnd(braced) && la != ATTRIBUTE_SEPARATOR) {
+				if (la == BatchImportExpression.GROUP_END_CHAR) {
+					groupCloseSeen = true;
+				} else {
+					attributeEmpty = false;
+					if (la == TYPE_SEPARATOR) {
+						part++;
+					} else if (part == 0) {
+						type.append((char) la);
+					} else if (part == 1) {
+						value.append((char) la);
+					} else {
+						surplusParts = true;
+					}
+				}
+				consume();
+			}
+			int attributeEnd = laPos;
+			if (la == ATTRIBUTE_SEPARATOR) {
+				groupEmpty = false;
+				consume();
+			}
+
+			if (attributeEmpty) {
+				//Empty attributes are only tolerated at the end of a group
+				if (pendingEmptyAttributes++ == 0) {
+					emptyAttributeStart = attributeStart;
+				}
+				continue;
+			}
+			groupEmpty = false;
+			if (pendingEmptyAttributes > 0) {
+				throw new ProcessingException("Unable to detect type=value in attribute: " + source.subSequence(emptyAttributeStart, attributeEnd));
+			}
+			//Expected format  type=value so bomb out if we don't end up with two concepts
+			if (value.length() == 0 || surplusParts) {
+				throw new ProcessingException("Unable to detect type=value in attribute: " + source.subSequence(attributeStart, attributeEnd));
+			}
+			if (!isValidSctid(type)) {
+				throw new ProcessingException("Attribute type is not a valid SCTID: " + type);
+			}
+			if (!isValidSctid(value)) {
+				throw new ProcessingException("Attribute destination is not a valid SCTID: " + value);
+			}
+			String tmpId = "rel_" + groupNumber + "." + (attributeNumber++);
+			group.addRelationship(BatchImportService.createRelationship(groupNumber, tmpId, null, type.toString(), value.toString(), moduleId));
+		}
+		return groupEmpty ? null : group;
+	}
+
+	private boolean isGroupEnd(boolean braced) {
+		return la == EOF || la == BatchImportExpression.GROUP_START_CHAR || (!braced && la == BatchImportExpression.GROUP_END_CHAR);
+	}
+
+	/**
+	 * Moves to the next significant character, skipping spaces and human readable terms.
+	 */
+	private void consume() {
+		while (pos < length) {
+			char c = source.charAt(pos);
+			if (c == SPACE) {
+				pos++;
+			} else if (c == PIPE) {
+				pos = findEndOfTerm(pos);
+			} else {
+				la = c;
+				laPos = pos++;
+				return;
+			}
+		}
+		la = EOF;
+		laPos = length;
+	}
+
+	/**
+	 * A term runs from a pipe to its closing pipe, or up to the next character that
+	 * cannot be part of a term.  Commas are allowed in terms unless followed by an identifier.
+	 */
+	private int findEndOfTerm(int pipeIdx) {
+		int searchFrom = pipeIdx + 1;
+		while (true) {
+			int endIdx = indexOfTerminator(searchFrom);
+			if (endIdx == -1) {
+				return length;
+			}
+			char terminator = source.charAt(endIdx);
+			if (terminator == PIPE) {
+				return endIdx + 1;
+			} else if (terminator == ATTRIBUTE_SEPARATOR && !isNumericSpace(endIdx + 1, Math.min(endIdx + 5, length))) {
+				//It's a comma inside a term, so keep looking for the actual end
+				searchFrom = endIdx + 1;
+			} else {
+				return endIdx;
+			}
+		}
+	}
+
+	private int indexOfTerminator(int searchFrom) {
+		for (int idx = searchFrom; idx < length; idx++) {
+			char c = source.charAt(idx);
+			for (char terminator : TERM_TERMINATORS) {
+				if (c == terminator) {
+					return idx;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private boolean isNumericSpace(int start, int end) {
+		for (int idx = start; idx < end; idx++) {
+			char c = source.charAt(idx);
+			if (!Character.isDigit(c) && c != SPACE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isValidSctid(CharSequence sctid) {
+		return VerhoeffCheck.isValid(sctid);
+	}
+}
@@ -1,14 +1,14 @@
 package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
 import org.ihtsdo.otf.rest.exception.BusinessServiceException;
 import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportFormat;
@@ -22,13 +22,22 @@ public class BatchImportRun {
 	
 	private static final String DEFAULT_MODULE_ID = "defaultModuleId";
 
-	private Map <CSVRecord, BatchImportDetail> allRows = new LinkedHashMap<>();
+	//Only rows whose results have not yet been written out are held here
+	private Map <CSVRecord, BatchImportDetail> pendingResults = new LinkedHashMap<>();
+	private Set<Long> rowsReported = new HashSet<>();
 	private Map <String, BatchImportConcept> allValidConcepts = new HashMap<>();
+	//Concepts held under the root until the parent they name turns up later in the file
+	private Map <String, List<BatchImportConcept>> awaitingParent = new HashMap<>();
+	private List<List<BatchImportConcept>> loadHierarchy;
 	private BatchImportConcept rootConcept = BatchImportConcept.createRootConcept();
 	private BatchImportRequest importRequest;
 	private BatchImportFormat format;
 	private AuthoringProject project;
 	private UUID id;
+	private BatchImportCheckpoint checkpoint = new BatchImportCheckpoint();
+	//Concepts loaded by an earlier, interrupted attempt, by the task they were loaded onto
+	private Map<String, List<BatchImportConcept>> previouslyLoaded = new HashMap<>();
+	private Map<String, BatchImportConcept> previouslyLoadedConcepts = new HashMap<>();
 	
 	public static BatchImportRun createRun (UUID batchImportId, BatchImportRequest importRequest) throws BusinessServiceException {
 		BatchImportRun run = new BatchImportRun(importRequest);
@@ -48,34 +57,75 @@ public class BatchImportRun {
 
 	public void fail(CSVRecord row, String failureReason) {
 		BatchImportDetail failureDetail = new BatchImportDetail(false, failureReason, null);
-		allRows.put(row, failureDetail);
+		pendingResults.put(row, failureDetail);
+		rowsReported.add(row.getRecordNumber());
 	}
 	
 	public void succeed(CSVRecord row, String additionalInfo, String sctIdCreated) {
 		BatchImportDetail successDetail = new BatchImportDetail(true, additionalInfo, sctIdCreated);
-		allRows.put(row, successDetail);
+		pendingResults.put(row, successDetail);
+		rowsReported.add(row.getRecordNumber());
 	}
 
 	public void insertIntoLoadHierarchy(BatchImportConcept thisConcept) throws BusinessServiceException {
 		allValidConcepts.put(thisConcept.getSctid(), thisConcept);
+		loadHierarchy = null;
 		
 		//Are we loading the parent of this concept? Add as a child if so
-		if (allValidConcepts.containsKey(thisConcept.getParent(0))) {
-			allValidConcepts.get(thisConcept.getParent(0)).addChild(thisConcept);
+		String parentId = thisConcept.getParent(0);
+		BatchImportConcept parent = allValidConcepts.get(parentId);
+		if (parent != null) {
+			parent.addChild(thisConcept);
 		} else {
-			//otherwise add as a child of the root concept
+			//otherwise add as a child of the root concept until the parent appears
 			rootConcept.addChild(thisConcept);
+			List<BatchImportConcept> siblings = awaitingParent.get(parentId);
+			if (siblings == null) {
+				siblings = new ArrayList<>();
+				awaitingParent.put(parentId, siblings);
+			}
+			siblings.add(thisConcept);
 		}
 		
 		//Is this concept a parent of existing known children?  Remove children 
 		//from the root concept and add under this concept if so
-		for (BatchImportConcept existingConcept : allValidConcepts.values()) {
-			if (existingConcept.getParent(0).equals(thisConcept.getSctid())) {
+		List<BatchImportConcept> existingChildren = awaitingParent.remove(thisConcept.getSctid());
+		if (existingChildren != null) {
+			for (BatchImportConcept existingConcept : existingChildren) {
 				rootConcept.removeChild(existingConcept);
 				thisConcept.addChild(existingConcept);
 			}
 		}
-		
+	}
+
+	/**
+	 * @return one list per top level concept, holding that concept followed by all of its
+	 * descendants in load order.  Parents and children must be loaded in the same task, so
+	 * each list is the smallest unit a load can be split into.
+	 */
+	public List<List<BatchImportConcept>> getLoadHierarchy() {
+		if (loadHierarchy == null) {
+			List<List<BatchImportConcept>> hierarchy = new ArrayList<>();
+			for (BatchImportConcept topLevelConcept : rootConcept.getChildren()) {
+				List<BatchImportConcept> thisTree = new ArrayList<>();
+				thisTree.add(topLevelConcept);
+				topLevelConcept.addDescendants(thisTree);
+				hierarchy.add(thisTree);
+			}
+			loadHierarchy = hierarchy;
+		}
+		return loadHierarchy;
+	}
+
+	/**
+	 * @return the number of concepts reachable in the load hierarchy
+	 */
+	public int getLoadCount() {
+		int loadCount = 0;
+		for (List<BatchImportConcept> thisTree : getLoadHierarchy()) {
+			loadCount += thisTree.size();
+		}
+		return loadCount;
 	}
 
 	public BatchImportConcept getRootConcept() {
@@ -83,18 +133,41 @@ public class BatchImportRun {
 	}
 	
 	public BatchImportConcept getConcept (String sctId) {
-		return allValidConcepts.get(sctId);
+		BatchImportConcept concept = allValidConcepts.get(sctId);
+		return concept != null ? concept : previouslyLoadedConcepts.get(sctId);
+	}
+
+	/**
+	 * Records a concept loaded by an earlier attempt at this import.  It is kept out of the load hierarchy,
+	 * but is reported with the concepts loaded now when its task is handed over.
+	 */
+	public void previouslyLoaded(String taskKey, BatchImportConcept concept) {
+		previouslyLoadedConcepts.put(concept.getSctid(), concept);
+		List<BatchImportConcept> taskConcepts = previouslyLoaded.get(taskKey);
+		if (taskConcepts == null) {
+			taskConcepts = new ArrayList<>();
+			previouslyLoaded.put(taskKey, taskConcepts);
+		}
+		taskConcepts.add(concept);
+	}
+
+	/**
+	 * @return the concepts loaded onto the task by an earlier attempt at this import, in row order.
+	 */
+	public List<BatchImportConcept> getPreviouslyLoaded(String taskKey) {
+		List<BatchImportConcept> taskConcepts = previouslyLoaded.get(taskKey);
+		return taskConcepts == null ? new ArrayList<>() : taskConcepts;
 	}
 
 	public BatchImportRequest getImportRequest() {
 		return importRequest;
 	}
 
-	public void abortLoad(List<CSVRecord> rows) {
-		//Any rows that haven't been loaded, we'll mark as not loaded
-		for (CSVRecord thisRow : rows) {
-			if (!allRows.containsKey(thisRow)) {
-				fail(thisRow, null);
+	public void abortLoad() {
+		//Any concepts that haven't been loaded, we'll mark as not loaded
+		for (BatchImportConcept thisConcept : allValidConcepts.values()) {
+			if (!rowsReported.contains(thisConcept.getRow().getRecordNumber())) {
+				fail(thisConcept.getRow(), null);
 			}
 		}
 	}
@@ -107,20 +180,25 @@ public class BatchImportRun {
 		this.id = id;
 	}
 
-	public String resultsAsCSV() throws IOException, BusinessServiceException {
+	public String resultsHeaderAsCSV() {
+		StringBuilder buff = new StringBuilder(BatchImportFormat.ADDITIONAL_RESULTS_HEADER);
+		for (String thisHeaderItem : format.getHeaders()) {
+			buff.append(",")
+				.append(thisHeaderItem);
+		}
+		buff.append(BatchImportFormat.NEW_LINE);
+		return buff.toString();
+	}
+
+	/**
+	 * Renders the results recorded since the last call as CSV and releases them,
+	 * so that the run only ever holds the rows of the chunk currently in progress.
+	 */
+	public String drainResultsAsCSV() {
 		StringBuilder buff = new StringBuilder();
-		CSVPrinter out = null;
 		try {
-			out = new CSVPrinter(buff, CSVFormat.EXCEL);
-			//First add the header row
-			buff.append(BatchImportFormat.ADDITIONAL_RESULTS_HEADER);
-			for (String thisHeaderItem : format.getHeaders()) {
-				buff.append(",")
-					.append(thisHeaderItem);
-			}
-			buff.append(BatchImportFormat.NEW_LINE);
-			//Now loop through all records and output the status, followed by the original line
-			for (Map.Entry<CSVRecord, BatchImportDetail> entry : allRows.entrySet()) {
+			//Loop through all pending records and output the status, followed by the original line
+			for (Map.Entry<CSVRecord, BatchImportDetail> entry : pendingResults.entrySet()) {
 				CSVRecord thisRow = entry.getKey();
 				BatchImportDetail detail = entry.getValue();
 				buff.append(thisRow.getRecordNumber())
@@ -145,13 +223,22 @@ public class BatchImportRun {
 		} catch (Exception e) {
 			logger.error("Exception while outputting Batch Import results as CSV",e);
 		} finally {
-			if (out != null)
-				out.close();
+			pendingResults.clear();
 		}
-		
 		return buff.toString();
 	}
 
+	/**
+	 * @return the rows already loaded by an earlier, interrupted attempt at this import.
+	 */
+	public BatchImportCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	public void setCheckpoint(BatchImportCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
 	public AuthoringProject getProject() {
 		return project;
 	}
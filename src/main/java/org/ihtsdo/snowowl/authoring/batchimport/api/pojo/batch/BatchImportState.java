@@ -1,6 +1,7 @@
 package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
 
 public enum BatchImportState {
+	QUEUED,
 	RUNNING,
 	FAILED,
 	COMPLETED
@@ -1,11 +1,15 @@
 package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
 
+import java.util.concurrent.atomic.LongAdder;
+
 public class BatchImportStatus {
-	private BatchImportState state;
-	private Integer target;
-	private Integer loaded;
-	private Integer processed;
-	private String message;
+	private volatile BatchImportState state;
+	private volatile Integer target;
+	//Bumped by every concept worker, so kept free of locks
+	private final LongAdder loaded = new LongAdder();
+	private final LongAdder processed = new LongAdder();
+	private volatile String message;
+	private volatile Integer queuePosition;
 	
 	public BatchImportStatus(BatchImportState state) {
 		this.state = state;
@@ -15,6 +19,9 @@ public class BatchImportStatus {
 	}
 	public void setState(BatchImportState state) {
 		this.state = state;
+		if (state != BatchImportState.QUEUED) {
+			queuePosition = null;
+		}
 	}
 	public Integer getTarget() {
 		return target;
@@ -23,16 +30,16 @@ public class BatchImportStatus {
 		this.target = target;
 	}
 	public Integer getLoaded() {
-		return loaded;
+		return asCount(loaded);
 	}
-	public void setLoaded(Integer loaded) {
-		this.loaded = loaded;
+	public void incrementLoaded() {
+		loaded.increment();
 	}
 	public Integer getProcessed() {
-		return processed;
+		return asCount(processed);
 	}
-	public void setProcessed(Integer processed) {
-		this.processed = processed;
+	public void incrementProcessed() {
+		processed.increment();
 	}
 	public String getMessage() {
 		return message;
@@ -40,5 +47,18 @@ public class BatchImportStatus {
 	public void setMessage(String message) {
 		this.message = message;
 	}
+	public Integer getQueuePosition() {
+		//A position set just as the import left the queue is not reported
+		return state == BatchImportState.QUEUED ? queuePosition : null;
+	}
+	public void setQueuePosition(Integer queuePosition) {
+		this.queuePosition = queuePosition;
+	}
+	
+	private static Integer asCount(LongAdder counter) {
+		//Counts are reported as absent until the first row is recorded
+		int count = counter.intValue();
+		return count == 0 ? null : count;
+	}
 
 }
@@ -0,0 +1,248 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportCheckpoint;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportRequest;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportRun;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.file.dao.ArbitraryTempFileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps enough of a batch import on disk for it to be resumed after a restart: a copy of
+ * the uploaded file, the request parameters and a journal of the tasks created, with the rows batched
+ * onto each, of the rows loaded and of the tasks handed over to their author. Journal lines are appended as each step completes, so a crash can
+ * only lose the line being written. Checkpoints which are not resumed are expired once nothing has been
+ * written to them for a while.
+ */
+class BatchImportCheckpointStore {
+
+	private static final String IMPORT_FILE = "import.csv";
+	private static final String REQUEST_FILE = "request.properties";
+	private static final String JOURNAL_FILE = "journal.csv";
+	private static final String TASK_ENTRY = "task";
+	private static final String ROW_ENTRY = "row";
+	private static final String COMPLETED_ENTRY = "completed";
+	private static final String SEPARATOR = ",";
+	private static final String ROW_SEPARATOR = " ";
+	private static final String NEW_LINE = "\n";
+
+	private static final String PROJECT_KEY = "projectKey";
+	private static final String CREATE_FOR_AUTHOR = "createForAuthor";
+	private static final String CONCEPTS_PER_TASK = "conceptsPerTask";
+	private static final String POST_TASK_DELAY = "postTaskDelay";
+	private static final String DRY_RUN = "dryRun";
+	private static final String ALLOW_LATERALIZED_CONTENT = "allowLateralizedContent";
+	private static final String ORIGINAL_FILENAME = "originalFilename";
+	private static final String STARTED_BY = "startedBy";
+
+	private final ArbitraryTempFileService fileService = new ArbitraryTempFileService("batch_import_checkpoint");
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	File storeImportFile(String projectKey, UUID batchImportId, InputStream data) throws IOException {
+		return fileService.write(getPath(projectKey, batchImportId, IMPORT_FILE), data).toFile();
+	}
+
+	Reader openImportFile(String projectKey, UUID batchImportId) throws IOException {
+		return new InputStreamReader(fileService.openStream(getPath(projectKey, batchImportId, IMPORT_FILE)));
+	}
+
+	void saveRequest(UUID batchImportId, BatchImportRequest importRequest, String startedBy) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(STARTED_BY, startedBy);
+		properties.setProperty(PROJECT_KEY, importRequest.getProjectKey());
+		properties.setProperty(CREATE_FOR_AUTHOR, importRequest.getCreateForAuthor());
+		properties.setProperty(CONCEPTS_PER_TASK, Integer.toString(importRequest.getConceptsPerTask()));
+		if (importRequest.getPostTaskDelay() != null) {
+			properties.setProperty(POST_TASK_DELAY, importRequest.getPostTaskDelay().toString());
+		}
+		properties.setProperty(DRY_RUN, Boolean.toString(Boolean.TRUE.equals(importRequest.isDryRun())));
+		properties.setProperty(ALLOW_LATERALIZED_CONTENT, Boolean.toString(Boolean.TRUE.equals(importRequest.isLateralizedContentAllowed())));
+		if (importRequest.getOriginalFilename() != null) {
+			properties.setProperty(ORIGINAL_FILENAME, importRequest.getOriginalFilename());
+		}
+		StringWriter writer = new StringWriter();
+		properties.store(writer, "Batch import " + batchImportId);
+		String path = getPath(importRequest.getProjectKey(), batchImportId, REQUEST_FILE);
+		fileService.write(path, writer.toString());
+		//Any journal belongs to an earlier import with this id, so start afresh
+		fileService.delete(getPath(importRequest.getProjectKey(), batchImportId, JOURNAL_FILE));
+	}
+
+	/**
+	 * @return the request as originally made, less its format which must be determined
+	 * from the import file, or null if there is no checkpoint for this import.
+	 */
+	BatchImportRequest loadRequest(String projectKey, UUID batchImportId) throws IOException {
+		Properties properties = loadRequestProperties(projectKey, batchImportId);
+		if (properties == null) {
+			return null;
+		}
+		BatchImportRequest importRequest = new BatchImportRequest();
+		importRequest.setProjectKey(properties.getProperty(PROJECT_KEY));
+		importRequest.setCreateForAuthor(properties.getProperty(CREATE_FOR_AUTHOR));
+		importRequest.setConceptsPerTask(Integer.parseInt(properties.getProperty(CONCEPTS_PER_TASK)));
+		String postTaskDelay = properties.getProperty(POST_TASK_DELAY);
+		importRequest.setPostTaskDelay(postTaskDelay == null ? null : Integer.valueOf(postTaskDelay));
+		importRequest.setDryRun(Boolean.valueOf(properties.getProperty(DRY_RUN)));
+		importRequest.allowLateralizedContent(Boolean.valueOf(properties.getProperty(ALLOW_LATERALIZED_CONTENT)));
+		importRequest.setOriginalFilename(properties.getProperty(ORIGINAL_FILENAME));
+		return importRequest;
+	}
+
+	/**
+	 * @return the user who started the import, or null if there is no checkpoint for this import.
+	 */
+	String loadStartedBy(String projectKey, UUID batchImportId) throws IOException {
+		Properties properties = loadRequestProperties(projectKey, batchImportId);
+		return properties == null ? null : properties.getProperty(STARTED_BY);
+	}
+
+	private Properties loadRequestProperties(String projectKey, UUID batchImportId) throws IOException {
+		String path = getPath(projectKey, batchImportId, REQUEST_FILE);
+		if (!fileService.exists(path) || !fileService.exists(getPath(projectKey, batchImportId, IMPORT_FILE))) {
+			return null;
+		}
+		Properties properties = new Properties();
+		properties.load(new StringReader(fileService.read(path)));
+		return properties;
+	}
+
+	BatchImportCheckpoint loadCheckpoint(String projectKey, UUID batchImportId) throws IOException {
+		BatchImportCheckpoint checkpoint = new BatchImportCheckpoint();
+		String path = getPath(projectKey, batchImportId, JOURNAL_FILE);
+		if (fileService.exists(path)) {
+			for (String line : fileService.read(path).split(NEW_LINE)) {
+				String[] entry = line.split(SEPARATOR);
+				List<Long> taskRows = entry.length == 4 && entry[0].equals(TASK_ENTRY) ? parseRows(entry[2], entry[3]) : null;
+				if (taskRows != null) {
+					checkpoint.taskCreated(entry[1], taskRows);
+				} else if (entry.length == 4 && entry[0].equals(ROW_ENTRY)) {
+					checkpoint.rowLoaded(Long.parseLong(entry[1]), entry[2], entry[3]);
+				} else if (!line.isEmpty()) {
+					//Most likely the line being written when the import was interrupted
+					logger.warn("Ignoring incomplete checkpoint entry for batch import {}: {}", batchImportId, line);
+				}
+			}
+		}
+		return checkpoint;
+	}
+
+	synchronized void taskCreated(BatchImportRun run, String taskKey, Collection<Long> recordNumbers) {
+		//The row count lets an entry cut short by a crash be told apart from a complete one
+		StringBuilder entry = new StringBuilder(TASK_ENTRY).append(SEPARATOR).append(taskKey)
+				.append(SEPARATOR).append(recordNumbers.size()).append(SEPARATOR);
+		for (Long recordNumber : recordNumbers) {
+			entry.append(recordNumber).append(ROW_SEPARATOR);
+		}
+		appendToJournal(run, entry.append(NEW_LINE).toString());
+	}
+
+	synchronized void rowLoaded(BatchImportRun run, long recordNumber, String sctidCreated, String taskKey) {
+		appendToJournal(run, ROW_ENTRY + SEPARATOR + recordNumber + SEPARATOR + sctidCreated + SEPARATOR + taskKey + NEW_LINE);
+	}
+
+	synchronized void taskCompleted(BatchImportRun run, String taskKey) {
+		//Terminated so that a key cut short by a crash isn't taken for another task
+		appendToJournal(run, COMPLETED_ENTRY + SEPARATOR + taskKey + SEPARATOR + NEW_LINE);
+	}
+
+	void clear(String projectKey, UUID batchImportId) {
+		try {
+			fileService.deleteDirectory(getDirectory(projectKey, batchImportId));
+		} catch (IOException e) {
+			logger.warn("Failed to remove checkpoint for batch import {}", batchImportId, e);
+		}
+	}
+
+	/**
+	 * Removes the checkpoints of imports, other than those given, which have not been written to since the cutoff.
+	 * @return the number of checkpoints removed
+	 */
+	int expire(long cutoffMillis, Set<UUID> inProgress) {
+		int expired = 0;
+		File[] projectDirectories = fileService.listFiles("");
+		if (projectDirectories == null) {
+			return expired;
+		}
+		for (File projectDirectory : projectDirectories) {
+			File[] importDirectories = projectDirectory.listFiles();
+			if (importDirectories == null) {
+				continue;
+			}
+			for (File importDirectory : importDirectories) {
+				UUID batchImportId;
+				try {
+					batchImportId = UUID.fromString(importDirectory.getName());
+				} catch (IllegalArgumentException e) {
+					continue;
+				}
+				if (!inProgress.contains(batchImportId) && getLastWritten(importDirectory) < cutoffMillis) {
+					logger.info("Expiring checkpoint for batch import {} in project {}", batchImportId, projectDirectory.getName());
+					clear(projectDirectory.getName(), batchImportId);
+					expired++;
+				}
+			}
+		}
+		return expired;
+	}
+
+	private long getLastWritten(File importDirectory) {
+		long lastWritten = importDirectory.lastModified();
+		File[] files = importDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				lastWritten = Math.max(lastWritten, file.lastModified());
+			}
+		}
+		return lastWritten;
+	}
+
+	/**
+	 * @return the rows of a task entry, or null if the entry is incomplete.
+	 */
+	private static List<Long> parseRows(String rowCount, String rows) {
+		List<Long> recordNumbers = new ArrayList<>();
+		try {
+			for (String row : rows.split(ROW_SEPARATOR)) {
+				if (!row.isEmpty()) {
+					recordNumbers.add(Long.parseLong(row));
+				}
+			}
+			return recordNumbers.size() == Integer.parseInt(rowCount) ? recordNumbers : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private void appendToJournal(BatchImportRun run, String entry) {
+		try {
+			fileService.append(getPath(run.getImportRequest().getProjectKey(), run.getId(), JOURNAL_FILE), entry);
+		} catch (IOException e) {
+			//The import itself can carry on, it just won't be resumable from this point
+			logger.error("Failed to checkpoint batch import {}", run.getId(), e);
+		}
+	}
+
+	private String getDirectory(String projectKey, UUID batchImportId) {
+		return projectKey + File.separator + batchImportId.toString();
+	}
+
+	private String getPath(String projectKey, UUID batchImportId, String fileName) {
+		return getDirectory(projectKey, batchImportId) + File.separator + fileName;
+	}
+}
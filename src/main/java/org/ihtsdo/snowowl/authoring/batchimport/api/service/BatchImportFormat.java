@@ -35,7 +35,7 @@ public class BatchImportFormat {
 	public static final String NOTE = "Note";
 	public static final String NOTES = "Notes";
 	public static final String EXPRESSION = "Expression";
-	private static final String NEW_SCTID = "NEW_SCTID";  //Indicates we'll pass blank to TS
+	static final String NEW_SCTID = "NEW_SCTID";  //Indicates we'll pass blank to TS
 	private static final String NULL_STR = "NULL";
 	
 	private FORMAT format;
@@ -0,0 +1,125 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.csv.CSVRecord;
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportFormat.FIELD;
+
+/**
+ * Checks the identifier columns of an import file (SCTID, Parent_1 and Parent_2) a chunk of rows at a time,
+ * so that rows with bad identifiers are rejected before any concept is built or task created for them.
+ * Identifiers are checked in place, nothing is allocated for a row unless it is rejected.
+ */
+public class BatchImportIdValidator {
+
+	static final int MIN_SCTID_LENGTH = 6;
+	static final int MAX_SCTID_LENGTH = 18;
+	static final int NAMESPACE_LENGTH = 7;
+
+	//The partition identifier is the two digits before the check digit
+	private static final char SHORT_FORMAT = '0';
+	private static final char LONG_FORMAT = '1';
+	private static final char CONCEPT_PARTITION = '0';
+
+	private final int sctidIdx;
+	private final int parent1Idx;
+	private final int parent2Idx;
+	private final int requiredColumns;
+
+	public BatchImportIdValidator(BatchImportFormat format) throws BusinessServiceException {
+		sctidIdx = format.getIndex(FIELD.SCTID);
+		//Where concepts are defined by expression, the parent is validated as the expression is parsed
+		parent1Idx = format.definesByExpression() ? BatchImportFormat.FIELD_NOT_FOUND : format.getIndex(FIELD.PARENT_1);
+		parent2Idx = format.definesByExpression() ? BatchImportFormat.FIELD_NOT_FOUND : format.getIndex(FIELD.PARENT_2);
+		requiredColumns = Math.max(sctidIdx, Math.max(parent1Idx, parent2Idx)) + 1;
+	}
+
+	/**
+	 * @return the reason for rejecting each row with a bad identifier, keyed on record number.
+	 * Rows too short to hold every identifier column are left for the caller to report.
+	 */
+	public Map<Long, String> validate(List<CSVRecord> rows) {
+		Map<Long, String> failures = new HashMap<>();
+		for (CSVRecord row : rows) {
+			String failure = validate(row);
+			if (failure != null) {
+				failures.put(row.getRecordNumber(), failure);
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * @return the reason for rejecting the row, or null if its identifiers are valid.
+	 */
+	public String validate(CSVRecord row) {
+		if (row.size() < requiredColumns) {
+			return null;
+		}
+		String sctid = row.get(sctidIdx).trim();
+		if (!sctid.equals(BatchImportFormat.NEW_SCTID)) {
+			String problem = checkConceptId(sctid);
+			if (problem != null) {
+				//As per BatchImportFormat.createConcept, a blank SCTID is tracked by row number
+				return (sctid.isEmpty() ? "row_" + row.getRecordNumber() : sctid) + " is not a valid sctid, " + problem + ".";
+			}
+		}
+		if (parent1Idx != BatchImportFormat.FIELD_NOT_FOUND) {
+			String parent = row.get(parent1Idx);
+			String problem = checkConceptId(parent);
+			if (problem != null) {
+				return parent + " is not a valid parent identifier, " + problem + ".";
+			}
+		}
+		if (parent2Idx != BatchImportFormat.FIELD_NOT_FOUND && !row.get(parent2Idx).isEmpty()) {
+			String parent = row.get(parent2Idx);
+			String problem = checkConceptId(parent);
+			if (problem != null) {
+				return parent + " is not a valid second parent identifier, " + problem + ".";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks the identifier's length, check digit, partition and, for long format identifiers, namespace.
+	 * @return why the identifier is not a valid concept identifier, or null if it is.
+	 */
+	public static String checkConceptId(CharSequence sctid) {
+		int length = sctid.length();
+		if (length < MIN_SCTID_LENGTH || length > MAX_SCTID_LENGTH) {
+			return "it must be between " + MIN_SCTID_LENGTH + " and " + MAX_SCTID_LENGTH + " digits long";
+		}
+		for (int i = 0; i < length; i++) {
+			char c = sctid.charAt(i);
+			if (c < '0' || c > '9') {
+				return "it must only contain digits";
+			}
+		}
+		if (sctid.charAt(0) == '0') {
+			return "it must not start with a zero";
+		}
+		if (!VerhoeffCheck.isValid(sctid)) {
+			return "the check digit is incorrect";
+		}
+		char format = sctid.charAt(length - 3);
+		char partition = sctid.charAt(length - 2);
+		if (partition != CONCEPT_PARTITION || (format != SHORT_FORMAT && format != LONG_FORMAT)) {
+			return "partition identifier " + format + partition + " is not that of a concept";
+		}
+		if (format == LONG_FORMAT) {
+			int namespaceStart = length - 3 - NAMESPACE_LENGTH;
+			if (namespaceStart < 1) {
+				return "it is too short to hold a namespace";
+			}
+			//Namespace identifiers are issued from 1000000 upwards
+			if (sctid.charAt(namespaceStart) == '0') {
+				return "namespace " + sctid.subSequence(namespaceStart, length - 3) + " is not a valid namespace";
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,155 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.ihtsdo.otf.rest.exception.ResourceNotFoundException;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportState;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes batch import status changes to subscribed clients as server-sent events.
+ * Each subscribed import is sampled on a fixed interval and only the fields that changed
+ * since the subscriber's last event are sent, so the workers recording progress never
+ * wait on a client and clients don't need to poll.
+ */
+@Service
+public class BatchImportProgressPublisher {
+
+	private static final String STATUS_EVENT = "status";
+
+	@Autowired
+	private BatchImportService batchImportService;
+
+	@Value("${batchImport.progressIntervalMillis}")
+	private long progressIntervalMillis;
+
+	@Value("${batchImport.progressStreamTimeoutMillis}")
+	private long streamTimeoutMillis;
+
+	private final Map<UUID, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor();
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	@PostConstruct
+	public void init() {
+		publisher.scheduleWithFixedDelay(this::publish, progressIntervalMillis, progressIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		publisher.shutdownNow();
+	}
+
+	public SseEmitter subscribe(UUID batchImportId) {
+		if (batchImportService.getImportStatus(batchImportId) == null) {
+			throw new ResourceNotFoundException("Batch import", batchImportId.toString());
+		}
+		SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+		Subscription subscription = new Subscription(emitter);
+		//Registered atomically so that a list being tidied away can't swallow the subscription
+		List<Subscription> importSubscriptions = subscriptions.compute(batchImportId, (id, existing) -> {
+			List<Subscription> updated = existing == null ? new CopyOnWriteArrayList<>() : existing;
+			updated.add(subscription);
+			return updated;
+		});
+		emitter.onCompletion(() -> importSubscriptions.remove(subscription));
+		emitter.onTimeout(() -> importSubscriptions.remove(subscription));
+		//Send the full status straight away rather than waiting for the next sample
+		publisher.execute(() -> publish(batchImportId, importSubscriptions));
+		return emitter;
+	}
+
+	private void publish() {
+		try {
+			for (Map.Entry<UUID, List<Subscription>> entry : subscriptions.entrySet()) {
+				publish(entry.getKey(), entry.getValue());
+				subscriptions.computeIfPresent(entry.getKey(), (id, importSubscriptions) -> importSubscriptions.isEmpty() ? null : importSubscriptions);
+			}
+		} catch (Exception e) {
+			//Don't let one bad sample stop all future ones
+			logger.error("Failed to publish batch import progress", e);
+		}
+	}
+
+	private void publish(UUID batchImportId, List<Subscription> importSubscriptions) {
+		BatchImportStatus status = batchImportService.getImportStatus(batchImportId);
+		if (status == null || importSubscriptions.isEmpty()) {
+			return;
+		}
+		Map<String, Object> current = snapshot(status);
+		boolean finished = status.getState() == BatchImportState.COMPLETED || status.getState() == BatchImportState.FAILED;
+		for (Subscription subscription : importSubscriptions) {
+			Map<String, Object> delta = subscription.changesSince(current);
+			try {
+				if (!delta.isEmpty()) {
+					subscription.emitter.send(SseEmitter.event().name(STATUS_EVENT).data(delta, MediaType.APPLICATION_JSON));
+				}
+				if (finished) {
+					importSubscriptions.remove(subscription);
+					subscription.emitter.complete();
+				}
+			} catch (IOException | IllegalStateException e) {
+				//Client has gone away, the container will complete the request
+				logger.debug("Dropping progress subscriber for batch import {}", batchImportId, e);
+				importSubscriptions.remove(subscription);
+			}
+		}
+	}
+
+	private Map<String, Object> snapshot(BatchImportStatus status) {
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("state", status.getState());
+		snapshot.put("target", status.getTarget());
+		snapshot.put("processed", status.getProcessed());
+		snapshot.put("loaded", status.getLoaded());
+		snapshot.put("queuePosition", status.getQueuePosition());
+		snapshot.put("message", status.getMessage());
+		return snapshot;
+	}
+
+	private static class Subscription {
+
+		private final SseEmitter emitter;
+		private Map<String, Object> lastSent = new LinkedHashMap<>();
+
+		Subscription(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		/**
+		 * @return the fields that differ from the last event sent, the first event holding every field.
+		 */
+		Map<String, Object> changesSince(Map<String, Object> current) {
+			Map<String, Object> delta = new LinkedHashMap<>();
+			for (Map.Entry<String, Object> field : current.entrySet()) {
+				if (!lastSent.containsKey(field.getKey()) || !Objects.equals(lastSent.get(field.getKey()), field.getValue())) {
+					delta.put(field.getKey(), field.getValue());
+				}
+			}
+			lastSent = current;
+			return delta;
+		}
+	}
+}
@@ -30,8 +30,10 @@ class BatchImportRunner implements Runnable {
 		try{
 			//Set the security context on this thread before Jira tries to use it
 			SecurityContextHolder.setContext(this.securityContext);
+			service.getBatchImportStatus(batchImportRun.getId()).setState(BatchImportState.RUNNING);
 			service.loadConceptsOntoTasks(batchImportRun);
 			completed = true;
+			service.importCompleted(batchImportRun);
 		} catch (Exception e) {
 			StringWriter sw = new StringWriter();
 			e.printStackTrace(new PrintWriter(sw));
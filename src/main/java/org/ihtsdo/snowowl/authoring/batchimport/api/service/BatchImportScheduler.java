@@ -0,0 +1,163 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs batch imports concurrently, capped both globally and per project.
+ * Imports waiting for a slot are queued per project and started round robin
+ * across projects, so one large import cannot hold up every other team.
+ */
+public class BatchImportScheduler {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final int maxConcurrentImports;
+	private final int maxConcurrentImportsPerProject;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	//Projects are visited in this order when a slot comes free, most recently served last
+	private final Map<String, Deque<QueuedImport>> queuedByProject = new LinkedHashMap<>();
+	private final Map<String, Integer> runningByProject = new HashMap<>();
+	//Project of each running import, in the order they were started
+	private final Deque<String> runningOrder = new ArrayDeque<>();
+
+	public BatchImportScheduler(int maxConcurrentImports, int maxConcurrentImportsPerProject) {
+		if (maxConcurrentImports < 1 || maxConcurrentImportsPerProject < 1) {
+			throw new IllegalArgumentException("Batch import concurrency limits must be at least 1");
+		}
+		this.maxConcurrentImports = maxConcurrentImports;
+		this.maxConcurrentImportsPerProject = maxConcurrentImportsPerProject;
+	}
+
+	public synchronized void submit(String projectKey, UUID batchImportId, Runnable runner) {
+		Deque<QueuedImport> projectQueue = queuedByProject.get(projectKey);
+		if (projectQueue == null) {
+			projectQueue = new ArrayDeque<>();
+			queuedByProject.put(projectKey, projectQueue);
+		}
+		projectQueue.add(new QueuedImport(batchImportId, runner));
+		logger.info("Batch import {} queued for project {}", batchImportId, projectKey);
+		dispatch();
+	}
+
+	/**
+	 * @return the 1-based position at which the import will be started if nothing else is submitted
+	 * and running imports finish in the order they started, or null if the import is not waiting to be started.
+	 */
+	public synchronized Integer getQueuePosition(UUID batchImportId) {
+		//Replay the dispatcher against copies of the queues and running imports
+		Map<String, Deque<QueuedImport>> queued = new LinkedHashMap<>();
+		for (Map.Entry<String, Deque<QueuedImport>> projectQueue : queuedByProject.entrySet()) {
+			queued.put(projectQueue.getKey(), new ArrayDeque<>(projectQueue.getValue()));
+		}
+		Map<String, Integer> projectsRunning = new HashMap<>(runningByProject);
+		Deque<String> started = new ArrayDeque<>(runningOrder);
+		int position = 0;
+		while (!queued.isEmpty()) {
+			String projectKey = nextProject(queued, projectsRunning, started.size());
+			if (projectKey == null) {
+				//Nothing can start until the longest running import finishes
+				String finished = started.poll();
+				if (finished == null) {
+					return null;
+				}
+				projectsRunning.put(finished, projectsRunning.get(finished) - 1);
+				continue;
+			}
+			position++;
+			Deque<QueuedImport> projectQueue = queued.remove(projectKey);
+			if (projectQueue.poll().batchImportId.equals(batchImportId)) {
+				return position;
+			}
+			if (!projectQueue.isEmpty()) {
+				queued.put(projectKey, projectQueue);
+			}
+			started.add(projectKey);
+			projectsRunning.put(projectKey, getRunning(projectsRunning, projectKey) + 1);
+		}
+		return null;
+	}
+
+	private synchronized void dispatch() {
+		if (executor.isShutdown()) {
+			return;
+		}
+		String projectKey;
+		while ((projectKey = nextProject(queuedByProject, runningByProject, runningOrder.size())) != null) {
+			Deque<QueuedImport> projectQueue = queuedByProject.remove(projectKey);
+			start(projectKey, projectQueue.poll());
+			//Move to the back of the rotation so other projects are served first next time
+			if (!projectQueue.isEmpty()) {
+				queuedByProject.put(projectKey, projectQueue);
+			}
+		}
+	}
+
+	/**
+	 * @return the first project in the rotation which may start an import now, or null if there is none.
+	 */
+	private String nextProject(Map<String, Deque<QueuedImport>> queued, Map<String, Integer> projectsRunning, int running) {
+		if (running >= maxConcurrentImports) {
+			return null;
+		}
+		for (String projectKey : queued.keySet()) {
+			if (getRunning(projectsRunning, projectKey) < maxConcurrentImportsPerProject) {
+				return projectKey;
+			}
+		}
+		return null;
+	}
+
+	private void start(final String projectKey, final QueuedImport queuedImport) {
+		runningOrder.add(projectKey);
+		runningByProject.put(projectKey, getRunning(runningByProject, projectKey) + 1);
+		logger.info("Starting batch import {} for project {}, {} imports now running", queuedImport.batchImportId, projectKey, runningOrder.size());
+		executor.execute(() -> {
+			try {
+				queuedImport.runner.run();
+			} finally {
+				complete(projectKey);
+			}
+		});
+	}
+
+	private synchronized void complete(String projectKey) {
+		runningOrder.removeFirstOccurrence(projectKey);
+		runningByProject.put(projectKey, getRunning(runningByProject, projectKey) - 1);
+		dispatch();
+	}
+
+	private static int getRunning(Map<String, Integer> projectsRunning, String projectKey) {
+		Integer projectRunning = projectsRunning.get(projectKey);
+		return projectRunning == null ? 0 : projectRunning;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private static class QueuedImport {
+
+		private final UUID batchImportId;
+		private final Runnable runner;
+
+		QueuedImport(UUID batchImportId, Runnable runner) {
+			this.batchImportId = batchImportId;
+			this.runner = runner;
+		}
+	}
+}
@@ -1,13 +1,15 @@
 package org.ihtsdo.snowowl.authoring.batchimport.api.service;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ihtsdo.otf.rest.client.RestClientException;
 import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClientFactory;
 import org.ihtsdo.otf.rest.client.snowowl.pojo.*;
-import org.ihtsdo.otf.rest.exception.BadRequestException;
 import org.ihtsdo.otf.rest.exception.BusinessServiceException;
 import org.ihtsdo.otf.rest.exception.ProcessingException;
+import org.ihtsdo.otf.rest.exception.ResourceNotFoundException;
 import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.*;
 import org.ihtsdo.snowowl.authoring.batchimport.api.service.file.dao.ArbitraryTempFileService;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringProject;
@@ -15,21 +17,36 @@ import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringTask;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringTaskCreateRequest;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringTaskUpdateRequest;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.User;
+import org.ihtsdo.snowowl.authoring.single.api.service.BranchProvisioningService;
 import org.ihtsdo.snowowl.authoring.single.api.service.TaskService;
 import org.ihtsdo.snowowl.authoring.single.api.service.UiStateService;
 import org.ihtsdo.sso.integration.SecurityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 @Service
 public class BatchImportService implements SnomedBrowserConstants{
@@ -43,22 +60,40 @@ public class BatchImportService implements SnomedBrowserConstants{
 	@Autowired
 	private SnowOwlRestClientFactory snowOwlRestClientFactory;
 	
+	@Autowired
+	private BranchProvisioningService branchProvisioningService;
+	
+	@Autowired
+	private BatchImportScheduler scheduler;
+	
 	private ArbitraryTempFileService fileService = new ArbitraryTempFileService("batch_import");
 	
+	private BatchImportCheckpointStore checkpoints = new BatchImportCheckpointStore();
+	
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	
-	private ExecutorService executor = null;
+	@Value("${batchImport.chunkSize}")
+	private int chunkSize;
+	
+	@Value("${batchImport.conceptWorkers}")
+	private int conceptWorkers;
+	
+	@Value("${batchImport.checkpointRetentionHours}")
+	private int checkpointRetentionHours;
+	
+	private final ScheduledExecutorService checkpointExpiry = Executors.newSingleThreadScheduledExecutor();
 	
 	private static final String[] LATERALITY = new String[] { "left", "right"};
 	
 	private static final int ROW_UNKNOWN = -1;
 	private static final String DRY_RUN = "DRY_RUN";
 	private static final int DEFAULT_GROUP = 0;
+	private static final int TASK_COMPLETION_WORKERS = 2;
 	
-	private static final String MAIN_ROOT = "MAIN/";
 	private static final String EDIT_PANEL = "edit-panel";
 	private static final String SAVE_LIST = "saved-list";	
 	private static final String NO_NOTES = "Concept import pending...";
+	public static final String COMPRESSED_RESULTS_EXTENSION = ".gz";
 	
 	private static final Map<String, String> ACCEPTABLE_ACCEPTABILIY = new HashMap<>();
 	static {
@@ -71,40 +106,177 @@ public class BatchImportService implements SnomedBrowserConstants{
 		PREFERRED_ACCEPTABILIY.put(SCTID_EN_US, Acceptability.PREFERRED.toString());
 	}	
 	
-	private Map<UUID, BatchImportStatus> currentImports = new HashMap<>();
+	private Map<UUID, BatchImportStatus> currentImports = new ConcurrentHashMap<>();
+	//Held while writing results, so that they are only read between complete gzip members
+	private final Object resultsLock = new Object();
+	
+	@PostConstruct
+	public void init() {
+		//Checkpoints of imports that are never resumed would otherwise be kept for ever
+		checkpointExpiry.scheduleWithFixedDelay(this::expireCheckpoints, 0, 1, TimeUnit.HOURS);
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		checkpointExpiry.shutdownNow();
+	}
+	
+	private void expireCheckpoints() {
+		try {
+			Set<UUID> inProgress = new HashSet<>();
+			for (Map.Entry<UUID, BatchImportStatus> thisImport : currentImports.entrySet()) {
+				if (isInProgress(thisImport.getValue())) {
+					inProgress.add(thisImport.getKey());
+				}
+			}
+			long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(checkpointRetentionHours);
+			int expired = checkpoints.expire(cutoff, inProgress);
+			if (expired > 0) {
+				logger.info("Expired {} batch import checkpoints not written to in the last {} hours", expired, checkpointRetentionHours);
+			}
+		} catch (Exception e) {
+			logger.error("Failed to expire batch import checkpoints", e);
+		}
+	}
+	
+	/**
+	 * Keeps a copy of an uploaded import file, so that the import can be resumed if interrupted.
+	 * @return the copy, which the import should be read from
+	 */
+	public File storeImportFile(String projectKey, UUID batchImportId, InputStream importFile) throws BusinessServiceException {
+		try {
+			return checkpoints.storeImportFile(projectKey, batchImportId, importFile);
+		} catch (IOException e) {
+			throw new BusinessServiceException("Unable to store batch import file", e);
+		}
+	}
+	
+	public void startImport(UUID batchImportId, BatchImportRequest importRequest, Iterable<CSVRecord> rows, String currentUser) throws BusinessServiceException {
+		BatchImportStatus status = reserve(batchImportId);
+		try {
+			checkpoints.saveRequest(batchImportId, importRequest, currentUser);
+		} catch (IOException e) {
+			logger.error("Failed to checkpoint batch import {}, it will not be resumable", batchImportId, e);
+		}
+		startImport(batchImportId, importRequest, rows, new BatchImportCheckpoint(), status);
+	}
 	
-	public BatchImportService() throws BadRequestException {
+	/**
+	 * Restarts an import that was interrupted, for example by a redeployment, from its checkpoint.
+	 * Rows already loaded are reported with their original results rather than being loaded again, 
+	 * and the rest of the rows batched onto tasks created before the interruption are loaded onto those same tasks,
+	 * unless a task had already been handed over to its author.
+	 * Only the user who started the import may resume it, as the tasks are created and assigned as them.
+	 */
+	public void resumeImport(String projectKey, UUID batchImportId, String currentUser) throws BusinessServiceException {
+		BatchImportStatus previousStatus = currentImports.get(batchImportId);
+		BatchImportStatus status = reserve(batchImportId);
+		boolean started = false;
 		try {
-			executor = Executors.newFixedThreadPool(1); //Want this to be Async, but not expecting more than 1 to run at a time.
-		} catch (IllegalArgumentException e) {
-			throw new BadRequestException(e.getMessage());
+			BatchImportRequest importRequest = checkpoints.loadRequest(projectKey, batchImportId);
+			if (importRequest == null) {
+				throw new ResourceNotFoundException("Batch import checkpoint", batchImportId.toString());
+			}
+			String startedBy = checkpoints.loadStartedBy(projectKey, batchImportId);
+			if (startedBy == null || !startedBy.equals(currentUser)) {
+				throw new AccessDeniedException("Batch import " + batchImportId + " can only be resumed by the user who started it");
+			}
+			BatchImportCheckpoint checkpoint = checkpoints.loadCheckpoint(projectKey, batchImportId);
+			try (CSVParser parser = CSVFormat.EXCEL.parse(checkpoints.openImportFile(projectKey, batchImportId))) {
+				CSVRecord header = parser.iterator().next();
+				importRequest.setFormat(BatchImportFormat.determineFormat(header));
+				logger.info("Resuming batch import {} in project {}, {} rows were loaded onto tasks {} before the interruption", 
+						batchImportId, projectKey, checkpoint.getRowsLoaded(), checkpoint.getTasksCreated());
+				startImport(batchImportId, importRequest, parser, checkpoint, status);
+				started = true;
+			}
+		} catch (IOException e) {
+			throw new BusinessServiceException("Unable to resume batch import " + batchImportId, e);
+		} finally {
+			if (!started) {
+				//Give back the reservation, so that the earlier run's outcome is still reported
+				if (previousStatus == null) {
+					currentImports.remove(batchImportId, status);
+				} else {
+					currentImports.replace(batchImportId, status, previousStatus);
+				}
+			}
 		}
 	}
 	
-	public void startImport(UUID batchImportId, BatchImportRequest importRequest, List<CSVRecord> rows, String currentUser) throws BusinessServiceException {
+	/**
+	 * Atomically claims the import id for a new run, so that two requests can never run the same import at once.
+	 * The status of an earlier run which has finished is replaced, which allows a failed import to be resumed.
+	 */
+	private BatchImportStatus reserve(UUID batchImportId) throws BusinessServiceException {
+		BatchImportStatus status = new BatchImportStatus(BatchImportState.QUEUED);
+		BatchImportStatus existing = currentImports.putIfAbsent(batchImportId, status);
+		if (existing != null && (isInProgress(existing) || !currentImports.replace(batchImportId, existing, status))) {
+			throw new BusinessServiceException("Batch import " + batchImportId + " is still in progress");
+		}
+		return status;
+	}
+	
+	private static boolean isInProgress(BatchImportStatus status) {
+		return status.getState() == BatchImportState.QUEUED || status.getState() == BatchImportState.RUNNING;
+	}
+	
+	private void startImport(UUID batchImportId, BatchImportRequest importRequest, Iterable<CSVRecord> rows, 
+			BatchImportCheckpoint checkpoint, BatchImportStatus status) throws BusinessServiceException {
 		BatchImportRun run = BatchImportRun.createRun(batchImportId, importRequest);
-		currentImports.put(batchImportId, new BatchImportStatus(BatchImportState.RUNNING));
-		prepareConcepts(run, rows);
-		int rowsToProcess = run.getRootConcept().childrenCount();
+		run.setCheckpoint(checkpoint);
+		if (!checkpoint.getTasksCreated().isEmpty()) {
+			status.setMessage("Resumed after interruption.  Tasks created before the interruption: " + checkpoint.getTasksCreated());
+		}
+		startResultsFile(run);
+		
+		//Parse the rows in bounded chunks, writing out the results of failed rows as we go
+		BatchImportIdValidator idValidator = new BatchImportIdValidator(importRequest.getFormat());
+		List<CSVRecord> chunk = new ArrayList<>(chunkSize);
+		for (CSVRecord thisRow : rows) {
+			chunk.add(thisRow);
+			if (chunk.size() >= chunkSize) {
+				prepareConcepts(run, chunk, idValidator);
+				outputCSV(run);
+				chunk.clear();
+			}
+		}
+		prepareConcepts(run, chunk, idValidator);
+		outputCSV(run);
+		
+		int rowsToProcess = run.getLoadCount();
 		setTarget(run.getId(), rowsToProcess);
 		logger.info("Batch Importing {} concepts onto new tasks in project {} - batch import id {} ",rowsToProcess, run.getImportRequest().getProjectKey(), run.getId().toString());
 		
 		if (validateLoadHierarchy(run)) {
 			BatchImportRunner runner = new BatchImportRunner(run, this);
-			executor.execute(runner);
+			scheduler.submit(run.getImportRequest().getProjectKey(), run.getId(), runner);
 		} else {
-			run.abortLoad(rows);
+			run.abortLoad();
 			getBatchImportStatus(run.getId()).setState(BatchImportState.FAILED);
+			//The file itself is at fault, so there's nothing to resume
+			checkpoints.clear(importRequest.getProjectKey(), batchImportId);
 			logger.info("Batch Importing failed in project {} - batch import id {} ",run.getImportRequest().getProjectKey(), run.getId().toString());
 			outputCSV(run);
 		}
 	}
 
-	private void prepareConcepts(BatchImportRun run, List<CSVRecord> rows) throws BusinessServiceException {
+	private void prepareConcepts(BatchImportRun run, List<CSVRecord> rows, BatchImportIdValidator idValidator) throws BusinessServiceException {
+		//Reject rows with bad identifiers before building any concepts
+		Map<Long, String> invalidIds = idValidator.validate(rows);
 		// Loop through concepts and form them into a hierarchy to be loaded, if valid
 		int minViableColumns = run.getImportRequest().getFormat().getHeaders().length;
+		BatchImportCheckpoint checkpoint = run.getCheckpoint();
 		for (CSVRecord thisRow : rows) {
-			if (thisRow.size() >= minViableColumns) {
+			long recordNumber = thisRow.getRecordNumber();
+			if (checkpoint.isLoaded(recordNumber)) {
+				run.succeed(thisRow, "Loaded onto " + checkpoint.getTaskKey(recordNumber) + " ", checkpoint.getSctidCreated(recordNumber));
+				recordPreviouslyLoaded(run, thisRow);
+			} else if (thisRow.size() < minViableColumns) {
+				run.fail(thisRow, "Blank row detected");
+			} else if (invalidIds.containsKey(recordNumber)) {
+				run.fail(thisRow, invalidIds.get(recordNumber));
+			} else {
 				try {
 					BatchImportConcept thisConcept = run.getFormatter().createConcept(thisRow);
 					if (validate(run, thisConcept)) {
@@ -113,19 +285,39 @@ public class BatchImportService implements SnomedBrowserConstants{
 				} catch (Exception e) {
 					run.fail(thisRow, e.getMessage());
 				}
-			} else {
-				run.fail(thisRow, "Blank row detected");
 			}
 		}
 	}
 
+	/**
+	 * Keeps a concept loaded before an interruption, so it can be reported when its task is handed over.
+	 */
+	private void recordPreviouslyLoaded(BatchImportRun run, CSVRecord row) {
+		BatchImportCheckpoint checkpoint = run.getCheckpoint();
+		long recordNumber = row.getRecordNumber();
+		String taskKey = checkpoint.getAssignedTask(recordNumber);
+		if (taskKey == null) {
+			taskKey = checkpoint.getTaskKey(recordNumber);
+		}
+		try {
+			BatchImportConcept thisConcept = run.getFormatter().createConcept(row);
+			if (run.getFormatter().definesByExpression()) {
+				parseExpression(run, thisConcept);
+			}
+			run.previouslyLoaded(taskKey, thisConcept);
+		} catch (Exception e) {
+			logger.warn("Unable to report concept at row {} loaded onto {} before the interruption", recordNumber, taskKey, e);
+		}
+	}
+
 	private boolean validateLoadHierarchy(BatchImportRun run) {
 		//Parents and children have to exist in the same task, so 
 		//check that we're not going to exceed "concepts per task"
 		//in doing so.
 		boolean valid = true;
-		for (BatchImportConcept thisConcept : run.getRootConcept().getChildren()) {
-			if (thisConcept.childrenCount() >= run.getImportRequest().getConceptsPerTask()) {
+		for (List<BatchImportConcept> thisTree : run.getLoadHierarchy()) {
+			BatchImportConcept thisConcept = thisTree.get(0);
+			if (thisTree.size() - 1 >= run.getImportRequest().getConceptsPerTask()) {
 				String failureMessage = "Concept " + thisConcept.getSctid() + " at row " + thisConcept.getRow().getRecordNumber() + " has more children than allowed for a single task";
 				run.fail(thisConcept.getRow(), failureMessage);
 				logger.error(failureMessage + " Aborting batch import.");
@@ -137,32 +329,10 @@ public class BatchImportService implements SnomedBrowserConstants{
 
 	
 	private boolean validate(BatchImportRun run, BatchImportConcept concept) {
-		if (!concept.requiresNewSCTID() && !validateSCTID(concept.getSctid())) {
-			run.fail(concept.getRow(), concept.getSctid() + " is not a valid sctid.");
-			return false;
-		}
-		
-		if (!run.getFormatter().definesByExpression() && !validateSCTID(concept.getParent(0))) {
-			run.fail(concept.getRow(), concept.getParent(0) + " is not a valid parent identifier.");
-			return false;
-		}
-		
+		//Identifier columns have already been checked by BatchImportIdValidator
 		if (run.getFormatter().definesByExpression()) {
 			try{
-				String moduleId = run.getDefaultModuleId();
-				BatchImportExpression exp = BatchImportExpression.parse(concept.getExpressionStr(), moduleId);
-				if (exp.getFocusConcepts() == null || exp.getFocusConcepts().size() < 1) {
-					throw new ProcessingException("Unable to determine a parent for concept from expression");
-				} 
-				String parentStr = exp.getFocusConcepts().get(0);
-				//Check we've got an integer (ok a long) for a parent
-				try {
-					Long.parseLong(parentStr);
-				} catch (NumberFormatException ne) {
-					throw new ProcessingException("Failed to correctly determine parent in expression: " + concept.getExpressionStr(),ne);
-				}
-				concept.addParent(parentStr);
-				concept.setExpression(exp);
+				parseExpression(run, concept);
 			} catch (NullPointerException np) {
 				run.fail(concept.getRow(), "API coding exception: NullPointerException.  See logs for details");
 				logger.error(ExceptionUtils.getStackTrace(np));
@@ -174,18 +344,25 @@ public class BatchImportService implements SnomedBrowserConstants{
 		}
 		return true;
 	}
-	
-	private boolean validateSCTID(String sctid) {
-		try{
-			return VerhoeffCheck.validateLastChecksumDigit(sctid);
-		} catch (Exception e) {
-			//It's wrong, that's all we need to know.
+
+	private void parseExpression(BatchImportRun run, BatchImportConcept concept) throws ProcessingException {
+		String moduleId = run.getDefaultModuleId();
+		BatchImportExpression exp = BatchImportExpression.parse(concept.getExpressionStr(), moduleId);
+		if (exp.getFocusConcepts() == null || exp.getFocusConcepts().size() < 1) {
+			throw new ProcessingException("Unable to determine a parent for concept from expression");
+		} 
+		String parentStr = exp.getFocusConcepts().get(0);
+		String problem = BatchImportIdValidator.checkConceptId(parentStr);
+		if (problem != null) {
+			throw new ProcessingException("Failed to correctly determine parent in expression, " + problem + ": " + concept.getExpressionStr());
 		}
-		return false;
+		concept.addParent(parentStr);
+		concept.setExpression(exp);
 	}
-
+	
 	void loadConceptsOntoTasks(BatchImportRun run) throws BusinessServiceException {
-		List<List<BatchImportConcept>> batches = collectIntoBatches(run);
+		Map<String, List<BatchImportConcept>> resumedBatches = new HashMap<>();
+		List<List<BatchImportConcept>> batches = collectIntoBatches(run, resumedBatches);
 		
 		String projectKey = run.getImportRequest().getProjectKey();
 		AuthoringProject project = taskService.retrieveProject(projectKey);
@@ -194,29 +371,167 @@ public class BatchImportService implements SnomedBrowserConstants{
 		}
 		run.setProject(project);
 		
-		for (List<BatchImportConcept> thisBatch : batches) {
-			AuthoringTask task = createTask(run, thisBatch);
-			Map<String, ConceptPojo> conceptsLoaded = loadConcepts(run, task, thisBatch);
-			String conceptsLoadedJson = conceptList(conceptsLoaded.values());
-			boolean dryRun = run.getImportRequest().isDryRun();
-			logger.info((dryRun?"Dry ":"") + "Loaded concepts onto task {}: {}",task.getKey(),conceptsLoadedJson);
-			if (!dryRun) {
-				// Update the edit panel so that the UI state exists before the task is transferred
-				if (conceptsLoadedJson.length() > 2) {
-					primeEditPanel(task, run, conceptsLoadedJson);
-					primeSavedList(task, run, conceptsLoaded.values());
-				} else {
-					logger.info("Skipped update of UI-Panel for {}: {}",task.getKey(),conceptsLoadedJson);
+		final SecurityContext securityContext = SecurityContextHolder.getContext();
+		//Concepts that don't depend on each other are created concurrently, bounded by this pool
+		ExecutorService conceptExecutor = Executors.newFixedThreadPool(conceptWorkers);
+		//While a batch loads, the next batch's task is created and earlier tasks are handed over
+		ExecutorService taskCreationExecutor = Executors.newSingleThreadExecutor();
+		ExecutorService taskCompletionExecutor = Executors.newFixedThreadPool(TASK_COMPLETION_WORKERS);
+		List<CompletableFuture<Void>> tasksCompleting = new ArrayList<>();
+		Future<AuthoringTask> nextTask = null;
+		List<BatchImportConcept> nextBatch = null;
+		AtomicBoolean abandoned = new AtomicBoolean();
+		try {
+			//Tasks created before an interruption are finished first, loading the rest of their rows onto them
+			for (String taskKey : run.getCheckpoint().getTasksCreated()) {
+				List<BatchImportConcept> thisBatch = resumedBatches.containsKey(taskKey) ? resumedBatches.get(taskKey) : new ArrayList<>();
+				if (run.getCheckpoint().isCompleted(taskKey)) {
+					//Already with its author, so rows which didn't load onto it then must not be added behind their back
+					for (BatchImportConcept thisConcept : thisBatch) {
+						run.fail(thisConcept.getRow(), "Not loaded onto task " + taskKey + " before the interruption, which has since been handed over");
+						incrementProgress(run.getId(), false);
+					}
+					outputCSV(run);
+					continue;
 				}
-				
-				//If we are loading 1 concept per task, then set the summary to be the FSN
+				AuthoringTask task;
+				try {
+					task = taskService.retrieveTask(projectKey, taskKey);
+				} catch (ResourceNotFoundException e) {
+					logger.warn("Task {} of batch import {} no longer exists", taskKey, run.getId());
+					for (BatchImportConcept thisConcept : thisBatch) {
+						run.fail(thisConcept.getRow(), "Task " + taskKey + " created before the interruption no longer exists");
+						incrementProgress(run.getId(), false);
+					}
+					continue;
+				}
+				//The interruption may have come before its branch was ready
+				branchProvisioningService.awaitBranch(task.getBranchPath());
+				Map<String, ConceptPojo> conceptsLoaded = getPreviouslyLoaded(run, taskKey);
+				conceptsLoaded.putAll(loadConcepts(run, task, thisBatch, conceptExecutor));
+				logger.info("Loaded concepts onto resumed task {}: {}", task.getKey(), conceptList(conceptsLoaded.values()));
 				String newSummary = null;
-				if (run.getImportRequest().getConceptsPerTask() == 1) {
-					newSummary = "New concept: " + thisBatch.get(0).getFsn();
+				if (run.getImportRequest().getConceptsPerTask() == 1 && !conceptsLoaded.isEmpty()) {
+					newSummary = "New concept: " + conceptsLoaded.values().iterator().next().getFsn();
+				}
+				tasksCompleting.add(completeTask(task, run, conceptsLoaded, newSummary, securityContext, taskCompletionExecutor));
+				outputCSV(run);
+			}
+			
+			for (int batchIdx = 0; batchIdx < batches.size(); batchIdx++) {
+				List<BatchImportConcept> thisBatch = batches.get(batchIdx);
+				AuthoringTask task = nextTask == null ? createTask(run, thisBatch) : awaitTask(nextTask);
+				nextTask = null;
+				if (batchIdx + 1 < batches.size()) {
+					final List<BatchImportConcept> followingBatch = batches.get(batchIdx + 1);
+					nextBatch = followingBatch;
+					nextTask = taskCreationExecutor.submit(() -> {
+						if (abandoned.get()) {
+							return null;
+						}
+						SecurityContextHolder.setContext(securityContext);
+						try {
+							return createTask(run, followingBatch);
+						} finally {
+							SecurityContextHolder.clearContext();
+						}
+					});
+				}
+				
+				Map<String, ConceptPojo> conceptsLoaded = loadConcepts(run, task, thisBatch, conceptExecutor);
+				boolean dryRun = run.getImportRequest().isDryRun();
+				logger.info((dryRun?"Dry ":"") + "Loaded concepts onto task {}: {}",task.getKey(),conceptList(conceptsLoaded.values()));
+				if (!dryRun) {
+					//If we are loading 1 concept per task, then set the summary to be the FSN
+					String newSummary = null;
+					if (run.getImportRequest().getConceptsPerTask() == 1) {
+						newSummary = "New concept: " + thisBatch.get(0).getFsn();
+					}
+					tasksCompleting.add(completeTask(task, run, conceptsLoaded, newSummary, securityContext, taskCompletionExecutor));
 				}
-				updateTaskDetails(task, run, conceptsLoaded, newSummary);
+				outputCSV(run);
 			}
+			for (CompletableFuture<Void> taskCompleting : tasksCompleting) {
+				taskCompleting.join();
+			}
+		} finally {
+			if (nextTask != null) {
+				//We're bailing out, so don't create a task that won't be loaded, but account for one already being created
+				abandoned.set(true);
+				reportUnloadedTask(run, nextTask, nextBatch);
+			}
+			conceptExecutor.shutdown();
+			taskCreationExecutor.shutdown();
+			taskCompletionExecutor.shutdown();
+		}
+	}
+	
+	private void reportUnloadedTask(BatchImportRun run, Future<AuthoringTask> pendingTask, List<BatchImportConcept> batch) {
+		AuthoringTask task;
+		try {
+			task = awaitTask(pendingTask);
+		} catch (BusinessServiceException e) {
+			logger.warn("Failed to create the next task of batch import {} while stopping", run.getId(), e);
+			return;
+		}
+		if (task == null || run.getImportRequest().isDryRun()) {
+			return;
+		}
+		//The task is journalled with its rows, so resuming the import will load them onto it
+		logger.warn("Task {} was created for batch import {} but nothing was loaded onto it", task.getKey(), run.getId());
+		for (BatchImportConcept thisConcept : batch) {
+			run.fail(thisConcept.getRow(), "Import stopped before loading onto task " + task.getKey() + ", resume the import to load it");
+		}
+	}
+	
+	private AuthoringTask awaitTask(Future<AuthoringTask> pendingTask) throws BusinessServiceException {
+		try {
+			return pendingTask.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof BusinessServiceException) {
+				throw (BusinessServiceException) e.getCause();
+			}
+			throw new BusinessServiceException("Failed to create task", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessServiceException("Interrupted while creating task", e);
+		}
+	}
+	
+	/**
+	 * Primes the UI state of a loaded task and then hands it over to its author, 
+	 * without holding up the loading of the next batch.
+	 */
+	private CompletableFuture<Void> completeTask(AuthoringTask task, BatchImportRun run, Map<String, ConceptPojo> conceptsLoaded,
+			String newSummary, SecurityContext securityContext, ExecutorService executor) {
+		String conceptsLoadedJson = conceptList(conceptsLoaded.values());
+		CompletableFuture<Void> uiStatePrimed;
+		if (conceptsLoadedJson.length() > 2) {
+			uiStatePrimed = CompletableFuture.allOf(
+					CompletableFuture.runAsync(inContext(securityContext, () -> primeEditPanel(task, run, conceptsLoadedJson)), executor),
+					CompletableFuture.runAsync(inContext(securityContext, () -> primeSavedList(task, run, conceptsLoaded.values())), executor));
+		} else {
+			logger.info("Skipped update of UI-Panel for {}: {}",task.getKey(),conceptsLoadedJson);
+			uiStatePrimed = CompletableFuture.completedFuture(null);
 		}
+		// Update the edit panel so that the UI state exists before the task is transferred
+		return uiStatePrimed.handle((ignored, failure) -> {
+			if (failure != null) {
+				logger.warn("Failed to prime UI state for task {}", task.getKey(), failure);
+			}
+			return null;
+		}).thenRunAsync(inContext(securityContext, () -> updateTaskDetails(task, run, conceptsLoaded, newSummary)), executor);
+	}
+	
+	private static Runnable inContext(SecurityContext securityContext, Runnable runnable) {
+		return () -> {
+			SecurityContextHolder.setContext(securityContext);
+			try {
+				runnable.run();
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		};
 	}
 
 	private void updateTaskDetails(AuthoringTask task, BatchImportRun run,
@@ -233,6 +548,7 @@ public class BatchImportService implements SnomedBrowserConstants{
 						task.getDescription(),
 						run.getImportRequest().getCreateForAuthor());
 			logger.info ("Task {} assigned to {}", task.getKey(), run.getImportRequest().getCreateForAuthor());
+			checkpoints.taskCompleted(run, task.getKey());
 		} catch (Exception e) {
 			logger.error("Failed to update description on task {}",task.getKey(),e);
 		}
@@ -309,19 +625,31 @@ public class BatchImportService implements SnomedBrowserConstants{
 		return buff;
 	}
 
-	private List<List<BatchImportConcept>> collectIntoBatches(BatchImportRun run) {
+	/**
+	 * @param resumedBatches populated with the trees batched onto tasks before an interruption, by task,
+	 * as parents and children have to be loaded onto the same task
+	 * @return the remaining trees, batched for new tasks
+	 */
+	private List<List<BatchImportConcept>> collectIntoBatches(BatchImportRun run, Map<String, List<BatchImportConcept>> resumedBatches) {
 		List<List<BatchImportConcept>> batches = new ArrayList<>();
 	
 		//Loop through all the children of root, starting a new batch every "concepts per task"
 		List<BatchImportConcept> thisBatch = null;
-		for (BatchImportConcept thisChild : run.getRootConcept().getChildren()) {
+		for (List<BatchImportConcept> thisTree : run.getLoadHierarchy()) {
+			String taskKey = run.getCheckpoint().getAssignedTask(thisTree.get(0).getRow().getRecordNumber());
+			if (taskKey != null) {
+				if (!resumedBatches.containsKey(taskKey)) {
+					resumedBatches.put(taskKey, new ArrayList<>());
+				}
+				resumedBatches.get(taskKey).addAll(thisTree);
+				continue;
+			}
 			if (thisBatch == null || thisBatch.size() >= run.getImportRequest().getConceptsPerTask()) {
 				thisBatch = new ArrayList<>();
 				batches.add(thisBatch);
 			}
 			//We can be sure that all descendants will not exceed our batch limit, having already validated
-			thisBatch.add(thisChild);
-			thisChild.addDescendants(thisBatch);
+			thisBatch.addAll(thisTree);
 		}
 		return batches;
 	}
@@ -339,16 +667,16 @@ public class BatchImportService implements SnomedBrowserConstants{
 		AuthoringTask task = null;
 		if (!request.isDryRun()) {
 			task = taskService.createTask(request.getProjectKey(), taskCreateRequest);
-			
-			//That creates a task in Jira, but we also have to ask the TS to create one so as to actually obtain a branch
-			try {
-				//The metadata on the project gives us the full branch, which may not be a simple MAIN/Project
-				String projectPath = calculateProjectPath(task);
-				logger.info("Creating TS task on project path: MAIN/{}", projectPath);
-				snowOwlRestClientFactory.getClient().createProjectTaskIfNeeded(projectPath, task.getKey());
-			} catch (RestClientException e) {
-				throw new BusinessServiceException("Failed to create task in TS", e);
+			//Journal the task straight away, so that a resumed import reuses it rather than orphaning it
+			List<Long> recordNumbers = new ArrayList<>();
+			for (BatchImportConcept thisConcept : thisBatch) {
+				recordNumbers.add(thisConcept.getRow().getRecordNumber());
 			}
+			checkpoints.taskCreated(run, task.getKey(), recordNumbers);
+			
+			//That creates a task in Jira and starts creating its branch in the TS, which we need before loading concepts
+			logger.info("Waiting for TS task branch {}", task.getBranchPath());
+			branchProvisioningService.awaitBranch(task.getBranchPath());
 		} else {
 			task = new AuthoringTask();
 			task.setProjectKey(request.getProjectKey());
@@ -357,18 +685,6 @@ public class BatchImportService implements SnomedBrowserConstants{
 		return task;
 	}
 
-	private String calculateProjectPath(AuthoringTask task) throws BusinessServiceException {
-		String projectPath = task.getBranchPath();
-		if (projectPath.startsWith(MAIN_ROOT)) {
-			//Top and tail the MAIN root and the task off the task branch path to get the full project name
-			int idxLastSlash = projectPath.lastIndexOf('/');
-			projectPath = projectPath.substring(MAIN_ROOT.length(), idxLastSlash);
-		} else {
-			throw new BusinessServiceException ("Unexpected branch path in task: " + task.getBranchPath());
-		}
-		return projectPath;
-	}
-
 	private String getRowRange(List<BatchImportConcept> thisBatch) {
 		StringBuilder str = new StringBuilder ("Rows ");
 		long minRow = ROW_UNKNOWN;
@@ -453,42 +769,125 @@ public class BatchImportService implements SnomedBrowserConstants{
 		return str.toString();
 	}
 
+	/**
+	 * @return the concepts loaded onto the task before an interruption, rebuilt from their rows
+	 * with the identifiers they were created with
+	 */
+	private Map<String, ConceptPojo> getPreviouslyLoaded(BatchImportRun run, String taskKey) {
+		Map<String, ConceptPojo> conceptsLoaded = new LinkedHashMap<>();
+		for (BatchImportConcept thisConcept : run.getPreviouslyLoaded(taskKey)) {
+			try {
+				ConceptPojo loadedConcept = createBrowserConcept(thisConcept, run.getFormatter(), run.getDefaultModuleId());
+				loadedConcept.setConceptId(run.getCheckpoint().getSctidCreated(thisConcept.getRow().getRecordNumber()));
+				conceptsLoaded.put(thisConcept.getSctid(), loadedConcept);
+			} catch (BusinessServiceException e) {
+				logger.warn("Unable to report concept at row {} loaded onto {}", thisConcept.getRow().getRecordNumber(), taskKey, e);
+			}
+		}
+		return conceptsLoaded;
+	}
+
 	private Map<String, ConceptPojo> loadConcepts(BatchImportRun run, AuthoringTask task,
-			List<BatchImportConcept> thisBatch) throws BusinessServiceException {
-		BatchImportRequest request = run.getImportRequest();
-		Map<String, ConceptPojo> conceptsLoaded = new HashMap<>();
+			List<BatchImportConcept> thisBatch, ExecutorService conceptExecutor) throws BusinessServiceException {
 		String moduleId = run.getDefaultModuleId();
-		for (BatchImportConcept thisConcept : thisBatch) {
-			boolean loadedOK = false;
-			try{
-				ConceptPojo newConcept = createBrowserConcept(thisConcept, run.getFormatter(), moduleId);
-				String warnings = "";
-				validateConcept(run, task, newConcept);
-				removeTemporaryIds(newConcept);
-				ConceptPojo createdConcept;
-				if (!request.isDryRun()) {
-					createdConcept = snowOwlRestClientFactory.getClient().createConcept(task.getBranchPath(), newConcept);
-				} else {
-					ConceptPojo dryRunConcept = new ConceptPojo();
-					dryRunConcept.setConceptId(DRY_RUN);
-					createdConcept = dryRunConcept;
+		final SecurityContext securityContext = SecurityContextHolder.getContext();
+		
+		//A concept only depends on its parent being loaded first, so each level of the 
+		//load hierarchy is created concurrently once the level above it has completed
+		Map<BatchImportConcept, Future<ConceptPojo>> results = new HashMap<>();
+		for (List<BatchImportConcept> thisLevel : groupByLoadDepth(thisBatch)) {
+			for (final BatchImportConcept thisConcept : thisLevel) {
+				results.put(thisConcept, conceptExecutor.submit(() -> {
+					SecurityContextHolder.setContext(securityContext);
+					try {
+						return loadConcept(run, task, thisConcept, moduleId);
+					} finally {
+						SecurityContextHolder.clearContext();
+					}
+				}));
+			}
+			for (BatchImportConcept thisConcept : thisLevel) {
+				try {
+					results.get(thisConcept).get();
+				} catch (ExecutionException e) {
+					//Failures are recorded against the row below
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new BusinessServiceException("Interrupted while loading concepts onto " + task.getKey(), e);
 				}
-				String msg = "Loaded onto " + task.getKey() + " " + warnings;
+			}
+		}
+		
+		//Record the results in the original row order
+		Map<String, ConceptPojo> conceptsLoaded = new LinkedHashMap<>();
+		for (BatchImportConcept thisConcept : thisBatch) {
+			try {
+				ConceptPojo createdConcept = results.get(thisConcept).get();
+				String msg = "Loaded onto " + task.getKey() + " ";
 				run.succeed(thisConcept.getRow(), msg, createdConcept.getConceptId());
-				loadedOK = true;
 				conceptsLoaded.put(thisConcept.getSctid(),createdConcept);
-			} catch (BusinessServiceException b) {
-				//Somewhat expected error, no need for full stack trace
-				run.fail(thisConcept.getRow(), b.getMessage());
-			} catch (Exception e) {
-				run.fail(thisConcept.getRow(), e.getMessage());
-				logger.error("Exception during Batch Import at line {}", thisConcept.getRow().getRecordNumber(), e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				run.fail(thisConcept.getRow(), cause.getMessage());
+				if (!(cause instanceof BusinessServiceException)) {
+					//Somewhat expected error if it's a BusinessServiceException, otherwise log the full stack trace
+					logger.error("Exception during Batch Import at line {}", thisConcept.getRow().getRecordNumber(), cause);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new BusinessServiceException("Interrupted while loading concepts onto " + task.getKey(), e);
 			}
-			incrementProgress(run.getId(), loadedOK);
 		}
 		return conceptsLoaded;
 	}
 	
+	private ConceptPojo loadConcept(BatchImportRun run, AuthoringTask task, BatchImportConcept thisConcept,
+			String moduleId) throws BusinessServiceException, RestClientException {
+		boolean loadedOK = false;
+		try {
+			ConceptPojo newConcept = createBrowserConcept(thisConcept, run.getFormatter(), moduleId);
+			validateConcept(run, task, newConcept);
+			removeTemporaryIds(newConcept);
+			ConceptPojo createdConcept;
+			if (!run.getImportRequest().isDryRun()) {
+				createdConcept = snowOwlRestClientFactory.getClient().createConcept(task.getBranchPath(), newConcept);
+				checkpoints.rowLoaded(run, thisConcept.getRow().getRecordNumber(), createdConcept.getConceptId(), task.getKey());
+			} else {
+				ConceptPojo dryRunConcept = new ConceptPojo();
+				dryRunConcept.setConceptId(DRY_RUN);
+				createdConcept = dryRunConcept;
+			}
+			loadedOK = true;
+			return createdConcept;
+		} finally {
+			incrementProgress(run.getId(), loadedOK);
+		}
+	}
+	
+	/**
+	 * Groups the concepts of a batch by their depth in the load hierarchy, 
+	 * preserving the batch order within each level.
+	 */
+	private List<List<BatchImportConcept>> groupByLoadDepth(List<BatchImportConcept> thisBatch) {
+		List<List<BatchImportConcept>> levels = new ArrayList<>();
+		Map<String, Integer> depths = new HashMap<>();
+		//Batches list every concept ahead of its descendants
+		for (BatchImportConcept thisConcept : thisBatch) {
+			Integer depth = depths.get(thisConcept.getSctid());
+			if (depth == null) {
+				depth = 0;
+			}
+			if (levels.size() <= depth) {
+				levels.add(new ArrayList<>());
+			}
+			levels.get(depth).add(thisConcept);
+			for (BatchImportConcept thisChild : thisConcept.getChildren()) {
+				depths.put(thisChild.getSctid(), depth + 1);
+			}
+		}
+		return levels;
+	}
+	
 	/**
 	 * We assigned temporary text ids so that we could tell the user which components failed validation
 	 * but we don't want to save those, so remove.
@@ -710,7 +1109,7 @@ public class BatchImportService implements SnomedBrowserConstants{
 
 	private String getFilePath(BatchImportRun run) {
 		String fileLocation = getFileLocation(run.getImportRequest().getProjectKey(), run.getId().toString());
-		return fileLocation + File.separator + run.getImportRequest().getOriginalFilename();
+		return fileLocation + File.separator + run.getImportRequest().getOriginalFilename() + COMPRESSED_RESULTS_EXTENSION;
 	}
 	
 	private String getFileLocation(String projectKey, String uuid) {
@@ -718,9 +1117,23 @@ public class BatchImportService implements SnomedBrowserConstants{
 	}
 
 	public BatchImportStatus getImportStatus(UUID batchImportId) {
-		return currentImports.get(batchImportId);
+		BatchImportStatus status = currentImports.get(batchImportId);
+		if (status != null && status.getState() == BatchImportState.QUEUED) {
+			status.setQueuePosition(scheduler.getQueuePosition(batchImportId));
+		}
+		return status;
 	}
 	
+	/**
+	 * @return the length of the results file as made up of complete gzip members, 
+	 * which can be read even while the import is still appending to it.
+	 */
+	public long getResultsLength(File resultsFile) {
+		synchronized (resultsLock) {
+			return resultsFile.length();
+		}
+	}
+
 	public File getImportResultsFile(String projectKey, UUID batchImportId) {
 		File resultDir = new File (getFileLocation(projectKey, batchImportId.toString()));
 		File[] importResultFiles = fileService.listFiles(resultDir.getPath());
@@ -731,40 +1144,49 @@ public class BatchImportService implements SnomedBrowserConstants{
 		return importResultFiles[0];
 	}
 
-	public String getImportResults(String projectKey, UUID batchImportId) throws IOException {
-		File resultFile = getImportResultsFile(projectKey, batchImportId);
-		if (resultFile == null) {
-			throw new FileNotFoundException();
-		}
-		return fileService.read(resultFile);
+	void importCompleted(BatchImportRun run) {
+		checkpoints.clear(run.getImportRequest().getProjectKey(), run.getId());
 	}
 	
-	synchronized private void setTarget(UUID batchImportId, Integer rowsToProcess) {
+	private void setTarget(UUID batchImportId, Integer rowsToProcess) {
 		BatchImportStatus status = getBatchImportStatus(batchImportId);
 		status.setTarget(rowsToProcess);
 	}
 	
-	synchronized private void incrementProgress(UUID batchImportId, boolean loaded) {
+	private void incrementProgress(UUID batchImportId, boolean loaded) {
 		BatchImportStatus status = getBatchImportStatus(batchImportId);
-		status.setProcessed(status.getProcessed() == null ? 1 : status.getProcessed() + 1);
+		status.incrementProcessed();
 		if (loaded) {
-			status.setLoaded(status.getLoaded() == null ? 1 : status.getLoaded() + 1);
+			status.incrementLoaded();
 		}
 	}
 	
-	synchronized BatchImportStatus getBatchImportStatus(UUID batchImportId) {
-		BatchImportStatus status = currentImports.get(batchImportId);
-		if (status == null) {
-			status = new BatchImportStatus (BatchImportState.RUNNING);
-			currentImports.put(batchImportId, status);
+	BatchImportStatus getBatchImportStatus(UUID batchImportId) {
+		return currentImports.computeIfAbsent(batchImportId, id -> new BatchImportStatus(BatchImportState.RUNNING));
+	}
+
+	private void startResultsFile(BatchImportRun batchImportRun) {
+		try {
+			Path outputPath;
+			synchronized (resultsLock) {
+				outputPath = fileService.writeCompressed(getFilePath(batchImportRun), batchImportRun.resultsHeaderAsCSV());
+			}
+			logger.info("BatchImport CSV results file for {} started at {}", batchImportRun.getImportRequest().getProjectKey(), outputPath.toAbsolutePath());
+		} catch (Exception e) {
+			logger.error("Failed to start results file for batch import",e);
 		}
-		return status;
 	}
 
 	public void outputCSV(BatchImportRun batchImportRun) {
 		try {
-			Path outputPath = fileService.write(getFilePath(batchImportRun), batchImportRun.resultsAsCSV());
-			logger.info("BatchImport CSV results file for {} written to {}", batchImportRun.getImportRequest().getProjectKey(), outputPath.toAbsolutePath());
+			String results = batchImportRun.drainResultsAsCSV();
+			if (!results.isEmpty()) {
+				Path outputPath;
+				synchronized (resultsLock) {
+					outputPath = fileService.appendCompressed(getFilePath(batchImportRun), results);
+				}
+				logger.debug("BatchImport CSV results for {} appended to {}", batchImportRun.getImportRequest().getProjectKey(), outputPath.toAbsolutePath());
+			}
 		} catch (Exception e) {
 			logger.error("Failed to save results of batch import",e);
 		}
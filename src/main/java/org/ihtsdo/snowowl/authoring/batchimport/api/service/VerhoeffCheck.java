@@ -17,6 +17,7 @@ package org.ihtsdo.snowowl.authoring.batchimport.api.service;
 
 /**
  * Implementation of the Verhoeff algorithm.
+ * Codes are read in place and nothing is allocated unless a code is rejected.
  * 
  * */
 public class VerhoeffCheck {
@@ -24,7 +25,7 @@ public class VerhoeffCheck {
 	/**
 	 * Represents the multiplication table.
 	 */
-	private static final char[][] D_TABLE = new char[][] {
+	private static final byte[][] D_TABLE = new byte[][] {
 			{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 },
 			{ 1, 2, 3, 4, 0, 6, 7, 8, 9, 5 },
 			{ 2, 3, 4, 0, 1, 7, 8, 9, 5, 6 },
@@ -39,7 +40,7 @@ public class VerhoeffCheck {
 	/**
 	 * Represents the permutation table.
 	 */
-	private static final char[][] P_TABLE = new char[][] {
+	private static final byte[][] P_TABLE = new byte[][] {
 			{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 },
 			{ 1, 5, 7, 6, 2, 8, 3, 0, 9, 4 },
 			{ 5, 8, 0, 3, 7, 9, 6, 1, 4, 2 },
@@ -52,19 +53,54 @@ public class VerhoeffCheck {
 	/**
 	 * Represents the inverse table.
 	 */
-	private static final char[] INV_TABLE = new char[] { 0, 4, 3, 2, 1, 5, 6, 7, 8, 9 };
+	private static final byte[] INV_TABLE = new byte[] { 0, 4, 3, 2, 1, 5, 6, 7, 8, 9 };
+	
+	/**
+	 * The multiplication and permutation tables folded together, indexed by
+	 * <tt>(position % 8) * 100 + checksum * 10 + digit</tt>, so each digit costs a single lookup.
+	 */
+	private static final byte[] STEP_TABLE = new byte[P_TABLE.length * 100];
+	static {
+		for (int position = 0; position < P_TABLE.length; position++) {
+			for (int checksum = 0; checksum < 10; checksum++) {
+				for (int digit = 0; digit < 10; digit++) {
+					STEP_TABLE[position * 100 + checksum * 10 + digit] = D_TABLE[checksum][P_TABLE[position][digit]];
+				}
+			}
+		}
+	}
+	
+	private static final int INVALID_CHARACTER = -1;
 
 	/**
 	 * Verifies that the specified code has the right checksum digit at the end.
 	 * 
 	 * @param code the code to validate
 	 * @return true if the checksum is correct, false otherwise
+	 * @throws IllegalArgumentException if the code is empty or contains anything other than digits before the check digit
 	 */
 	public static boolean validateLastChecksumDigit(final CharSequence code) {
-		final CharSequence idHead = code.subSequence(0, code.length() - 1);
-		final char originalChecksum = code.charAt(code.length() - 1);
-		final char checksum = calculateChecksum(idHead, false);
-		return (originalChecksum == checksum);
+		if (code.length() == 0) {
+			throw new IllegalArgumentException("Unable to validate the checksum of an empty code");
+		}
+		final char checksum = calculateChecksum(code, 0, code.length() - 1, false);
+		return code.charAt(code.length() - 1) == checksum;
+	}
+	
+	/**
+	 * Verifies that the specified code is made up of digits only, the last being the correct checksum digit.
+	 * Unlike {@link #validateLastChecksumDigit(CharSequence)}, malformed codes are simply reported as invalid.
+	 * 
+	 * @param code the code to validate
+	 * @return true if the checksum is correct, false otherwise
+	 */
+	public static boolean isValid(final CharSequence code) {
+		final int length = code.length();
+		if (length == 0) {
+			return false;
+		}
+		final int checksum = checksum(code, 0, length - 1, false);
+		return checksum != INVALID_CHARACTER && code.charAt(length - 1) == '0' + checksum;
 	}
 	
 	/**
@@ -97,22 +133,32 @@ public class VerhoeffCheck {
 	 * @return the proper value to use as a check digit.
 	 */
 	public static char calculateChecksum(final CharSequence code, final int start, final int end, final boolean includeCheckDigit) {
-		
-		//initialize the checksum to zero.
-		char checksum = 0;
-		
+		final int checksum = checksum(code, start, end, includeCheckDigit);
+		if (checksum == INVALID_CHARACTER) {
+			for (int pos = end - (start + 1); pos >= 0; pos--) {
+				final char c = code.charAt(pos);
+				if (c < '0' || c > '9') {
+					throw new IllegalArgumentException(String.format("Invalid Character '%s' at position %d in %s", c, pos, code));
+				}
+			}
+		}
+		return (char) ('0' + checksum);
+	}
+	
+	/**
+	 * @return the check digit's value, or {@link #INVALID_CHARACTER} if a character other than an ASCII digit is found.
+	 */
+	private static int checksum(final CharSequence code, final int start, final int end, final boolean includeCheckDigit) {
+		//Digits are read from the right, the check digit (if present) being at position 0
+		final int offset = includeCheckDigit ? 0 : 1;
+		int checksum = 0;
 		for (int i = start; i < end; i++) {
-			
-			int pos = end - (i + 1);
-			final int num = Character.getNumericValue(code.charAt(pos));
-			
-			if (num < 0 || num > 9) {
-				throw new IllegalArgumentException(String.format("Invalid Character '%s' at position %d in %s", code.charAt(pos), pos, code));
+			final int digit = code.charAt(end - (i + 1)) - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID_CHARACTER;
 			}
-			
-			pos = includeCheckDigit ? i : i + 1;
-			checksum = D_TABLE[checksum][P_TABLE[pos % 8][num]];
+			checksum = STEP_TABLE[((i + offset) & 7) * 100 + checksum * 10 + digit];
 		}
-		return Character.forDigit(INV_TABLE[checksum], 10);
+		return INV_TABLE[checksum];
 	}
-}
\ No newline at end of file
+}
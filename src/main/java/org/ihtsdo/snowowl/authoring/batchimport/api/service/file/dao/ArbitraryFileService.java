@@ -4,10 +4,15 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
 
 public class ArbitraryFileService {
 
@@ -26,10 +31,54 @@ public class ArbitraryFileService {
 		return outputPath;
 	}
 
+	public Path write(String path, InputStream data) throws IOException {
+		Path outputPath = getFile(path);
+		Files.copy(data, outputPath, StandardCopyOption.REPLACE_EXISTING);
+		return outputPath;
+	}
+
+	public Path append(String path, String data) throws IOException {
+		Path outputPath = getFile(path);
+		Files.write(outputPath, data.getBytes(UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		return outputPath;
+	}
+
+	/**
+	 * Appends the data as a separate gzip member.  Concatenated members are themselves a valid gzip file,
+	 * so a compressed file can be built up a piece at a time without being held in memory.
+	 */
+	public Path appendCompressed(String path, String data) throws IOException {
+		Path outputPath = getFile(path);
+		Files.write(outputPath, gzip(data), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		return outputPath;
+	}
+
+	public Path writeCompressed(String path, String data) throws IOException {
+		Path outputPath = getFile(path);
+		Files.write(outputPath, gzip(data));
+		return outputPath;
+	}
+
+	private byte[] gzip(String data) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(data.getBytes(UTF_8));
+		}
+		return compressed.toByteArray();
+	}
+
 	public String read(String path) throws IOException {
 		return new String(Files.readAllBytes(getFile(path)), UTF_8);
 	}
 	
+	public InputStream openStream(String path) throws IOException {
+		return Files.newInputStream(getFile(path));
+	}
+
+	public boolean exists(String path) {
+		return new File(baseDirectory, path).isFile();
+	}
+
 	public String read(File file) throws IOException {
 		return new String(Files.readAllBytes(file.toPath()), UTF_8);
 	}
@@ -55,6 +104,10 @@ public class ArbitraryFileService {
 		}
 	}
 
+	public void deleteDirectory(String relativePath) throws IOException {
+		FileUtils.deleteDirectory(new File(baseDirectory, relativePath));
+	}
+
 	public void moveFiles(String fromRelativePath, String toRelativePath) throws IOException {
 		File fromDir = new File(baseDirectory, fromRelativePath);
 		File toDir = new File(baseDirectory, toRelativePath);
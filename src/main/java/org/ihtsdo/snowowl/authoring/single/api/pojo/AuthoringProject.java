@@ -1,5 +1,6 @@
 package org.ihtsdo.snowowl.authoring.single.api.pojo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonRawValue;
 
 import java.util.Map;
@@ -19,6 +20,7 @@ public class AuthoringProject {
 	private boolean projectTemplatesDisabled;
 	private boolean projectSpellCheckDisabled;
 	private Map<String, Object> metadata;
+	private String branchHeadTimestamp;
 
 	public AuthoringProject(String key, String title, User leadUser, String branchPath, String branchState,
 							String latestClassificationJson, boolean projectPromotionDisabled,
@@ -116,4 +118,24 @@ public class AuthoringProject {
 	public void setMetadata(Map<String, Object> metadata) {
 		this.metadata = metadata;
 	}
+
+	@JsonIgnore
+	public String getBranchHeadTimestamp() {
+		return branchHeadTimestamp;
+	}
+
+	public void setBranchHeadTimestamp(String branchHeadTimestamp) {
+		this.branchHeadTimestamp = branchHeadTimestamp;
+	}
+
+	/**
+	 * @return a token which changes whenever anything shown for this project does.
+	 */
+	@JsonIgnore
+	public String getVersion() {
+		return String.join("|", key, title, projectLead == null ? null : projectLead.getUsername(), branchHeadTimestamp, branchState,
+				latestClassificationJson, validationStatus, String.valueOf(metadata),
+				String.valueOf(projectPromotionDisabled), String.valueOf(projectRebaseDisabled), String.valueOf(projectMrcmDisabled),
+				String.valueOf(projectTemplatesDisabled), String.valueOf(projectSpellCheckDisabled));
+	}
 }
@@ -6,6 +6,7 @@ import org.ihtsdo.snowowl.authoring.single.api.review.service.TaskMessagesStatus
 import org.ihtsdo.otf.rest.client.snowowl.PathHelper;
 import org.ihtsdo.snowowl.authoring.single.api.service.TaskStatus;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -38,6 +39,9 @@ public class AuthoringTask implements AuthoringTaskCreateRequest, AuthoringTaskU
 	private Date viewDate;
 	private String branchPath;
 	private String labels;
+	private String branchHeadTimestamp;
+	private int feedbackMessageCount;
+	private String branchProvisioningStatus;
 
 	public AuthoringTask() {
 	}
@@ -224,5 +228,44 @@ public class AuthoringTask implements AuthoringTaskCreateRequest, AuthoringTaskU
 		this.labels = labels;
 	}
 
+	@JsonIgnore
+	public String getBranchHeadTimestamp() {
+		return branchHeadTimestamp;
+	}
+
+	public void setBranchHeadTimestamp(String branchHeadTimestamp) {
+		this.branchHeadTimestamp = branchHeadTimestamp;
+	}
+
+	@JsonIgnore
+	public int getFeedbackMessageCount() {
+		return feedbackMessageCount;
+	}
+
+	public void setFeedbackMessageCount(int feedbackMessageCount) {
+		this.feedbackMessageCount = feedbackMessageCount;
+	}
+
+	/**
+	 * @return whether the task branch is PENDING creation, READY or FAILED to be created, null if not known.
+	 */
+	public String getBranchProvisioningStatus() {
+		return branchProvisioningStatus;
+	}
+
+	public void setBranchProvisioningStatus(String branchProvisioningStatus) {
+		this.branchProvisioningStatus = branchProvisioningStatus;
+	}
+
+	/**
+	 * @return a token which changes whenever anything shown for this task does. Any change made in Jira moves
+	 * the updated date, content changes move the branch head and the rest is recovered from elsewhere.
+	 */
+	@JsonIgnore
+	public String getVersion() {
+		return String.join("|", key, updated, branchHeadTimestamp, branchState, latestClassificationJson, latestValidationStatus,
+				String.valueOf(feedbackMessageCount), String.valueOf(feedbackMessagesStatus), String.valueOf(feedbackMessageDate),
+				String.valueOf(viewDate), branchProvisioningStatus);
+	}
 
 }
@@ -1,5 +1,6 @@
 package org.ihtsdo.snowowl.authoring.single.api.rest;
 
+import com.google.common.io.ByteStreams;
 import io.swagger.annotations.*;
 
 import org.apache.commons.csv.CSVFormat;
@@ -9,19 +10,27 @@ import org.ihtsdo.otf.rest.exception.BusinessServiceException;
 import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportRequest;
 import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportStatus;
 import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportFormat;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportProgressPublisher;
 import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static java.util.UUID.randomUUID;
 
@@ -30,8 +39,16 @@ import static java.util.UUID.randomUUID;
 @RequestMapping(produces={MediaType.APPLICATION_JSON_VALUE})
 public class BatchImportController {
 
+	private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
 	@Autowired
 	private BatchImportService batchImportService;
+	
+	@Autowired
+	private BatchImportProgressPublisher progressPublisher;
 
 	@ApiOperation(value="Import 3rd Party Concept file eg SIRS")
 	@ApiResponses({
@@ -57,14 +74,14 @@ public class BatchImportController {
 		try {
 			final UUID batchImportId = randomUUID();
 			
-			Reader in = new InputStreamReader(file.getInputStream());
+			//Read from a copy of the upload, which is kept so that an interrupted import can be resumed
+			File importFile = batchImportService.storeImportFile(projectKey, batchImportId, file.getInputStream());
+			Reader in = new InputStreamReader(new FileInputStream(importFile));
 			//SIRS files contain duplicate headers (eg multiple Notes columns) 
 			//So read 1st row as a record instead.
 			CSVParser parser = CSVFormat.EXCEL.parse(in);
 			CSVRecord header = parser.iterator().next();
 			BatchImportFormat format = BatchImportFormat.determineFormat(header);
-			//And load the remaining records into memory
-			List<CSVRecord> rows = parser.getRecords();
 			
 			//Swagger has difficulty handling both json and file in the same endpoint
 			//So we'll pass the items we need as individual parameters 
@@ -77,14 +94,37 @@ public class BatchImportController {
 			importRequest.setPostTaskDelay(postTaskDelay);
 			importRequest.setDryRun(dryRun);
 			importRequest.allowLateralizedContent(allowLateralizedContent);
+			//The remaining records are streamed from the upload in chunks rather than loaded into memory
+			batchImportService.startImport(batchImportId, importRequest, parser, ControllerHelper.getUsername());
 			parser.close();
-			batchImportService.startImport(batchImportId, importRequest, rows, ControllerHelper.getUsername());
 			response.setHeader("Location", request.getRequestURL() + "/" + batchImportId.toString());
 		} catch (Exception e) {
 			throw new BusinessServiceException ("Unable to import batch file",e);
 		}
 	}
 
+	@ApiOperation(
+			value="Resume an interrupted import run",
+			notes="Restarts an import run that was interrupted, for example by a redeployment. "
+					+ "Rows loaded before the interruption are skipped and tasks created before it are finished. "
+					+ "Only the user who started the import may resume it.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "OK"),
+		@ApiResponse(code = 403, message = "Batch import was started by another user"),
+		@ApiResponse(code = 404, message = "No resumable batch import found"),
+	})
+	@RequestMapping(value="/projects/{projectKey}/batchImport/{batchImportId}/resume", method=RequestMethod.POST)
+	public void resumeBatchImport(@PathVariable final String projectKey,
+			@ApiParam(value="The batch import identifier")
+			@PathVariable(value="batchImportId") 
+			final UUID batchImportId,
+			HttpServletRequest request,
+			HttpServletResponse response) throws BusinessServiceException {
+		
+		batchImportService.resumeImport(projectKey, batchImportId, ControllerHelper.getUsername());
+		response.setHeader("Location", request.getRequestURL().toString().replaceFirst("/resume$", ""));
+	}
+
 	@ApiOperation( 
 			value="Retrieve import run status", 
 			notes="Returns the specified batch import run's status.")
@@ -104,6 +144,24 @@ public class BatchImportController {
 		return batchImportService.getImportStatus(batchImportId);
 	}
 	
+	@ApiOperation(
+			value="Stream import run status",
+			notes="Pushes changes to the specified batch import run's status as server-sent events until the run finishes. "
+					+ "The first event holds the full status, later events only the fields that changed.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "OK"),
+		@ApiResponse(code = 404, message = "Batch import not found"),
+	})
+	@RequestMapping(value="/projects/{projectKey}/batchImport/{batchImportId}/status-stream", method=RequestMethod.GET, produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamBatchImportStatus(
+			@PathVariable final String projectKey,
+			@ApiParam(value="The batch import identifier")
+			@PathVariable(value="batchImportId") 
+			final UUID batchImportId) {
+
+		return progressPublisher.subscribe(batchImportId);
+	}
+	
 	@ApiOperation(
 			value="Retrieve import run details", 
 			notes="Returns the specified import run's results on a per row basis as a CSV file.")
@@ -117,28 +175,82 @@ public class BatchImportController {
 			@ApiParam(value="The import identifier")
 			@PathVariable(value="batchImportId") 
 			final UUID batchImportId,
-			HttpServletResponse request,
+			HttpServletRequest request,
 			HttpServletResponse response) throws BusinessServiceException, FileNotFoundException {
 
 		File resultsFile =  batchImportService.getImportResultsFile(projectKey, batchImportId);
 		if (resultsFile == null) {
 			throw new FileNotFoundException("Unable to find results file for batch import " + batchImportId + " on " + projectKey);
 		}
-		String csvFileName = "results_" + resultsFile.getName();
+		//An import still running appends to its results, so only send the members already written in full
+		long length = batchImportService.getResultsLength(resultsFile);
+		String resultsFileName = resultsFile.getName();
+		boolean compressed = resultsFileName.endsWith(BatchImportService.COMPRESSED_RESULTS_EXTENSION);
+		if (compressed) {
+			resultsFileName = resultsFileName.substring(0, resultsFileName.length() - BatchImportService.COMPRESSED_RESULTS_EXTENSION.length());
+		}
+		String csvFileName = "results_" + resultsFileName;
 		response.setContentType("text/csv");
+		if (compressed) {
+			//Whether the response is gzipped depends on the request's Accept-Encoding
+			response.setHeader("Vary", "Accept-Encoding");
+		}
 
 		String headerKey = "Content-Disposition";
 		String headerValue = String.format("attachment; filename=\"%s\"", csvFileName);
 		response.setHeader(headerKey, headerValue);
 		try {
-			Writer writer = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
-			String fileContent = batchImportService.getImportResults(projectKey, batchImportId);
-			writer.append(fileContent);
-			writer.flush();
-			writer.close();
+			if (compressed && acceptsGzip(request)) {
+				//Results are stored gzipped, so can be sent exactly as they are on disk
+				response.setHeader("Content-Encoding", "gzip");
+				sendFile(resultsFile, length, request, response);
+			} else if (compressed) {
+				try (InputStream in = new GZIPInputStream(ByteStreams.limit(new FileInputStream(resultsFile), length))) {
+					StreamUtils.copy(in, response.getOutputStream());
+				}
+			} else {
+				//Results written before they were compressed
+				sendFile(resultsFile, length, request, response);
+			}
 		} catch (IOException e) {
 			throw new BusinessServiceException ("Unable to recover batch import results",e);
 		} 
 	}
 
+	private boolean acceptsGzip(HttpServletRequest request) {
+		Enumeration<String> acceptEncodings = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+		while (acceptEncodings != null && acceptEncodings.hasMoreElements()) {
+			for (String encoding : acceptEncodings.nextElement().split(",")) {
+				String[] parts = encoding.trim().split(";");
+				if (parts[0].trim().equalsIgnoreCase("gzip")) {
+					//Honour an explicit refusal eg gzip;q=0
+					return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Hands the file to the container to send where it supports sendfile, otherwise
+	 * transfers it from the file channel without reading it into memory first.
+	 */
+	private void sendFile(File file, long length, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentLengthLong(length);
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+			request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+			request.setAttribute(SENDFILE_START, 0L);
+			request.setAttribute(SENDFILE_END, length);
+			return;
+		}
+		try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < length) {
+				position += in.transferTo(position, length - position, out);
+			}
+		}
+		response.flushBuffer();
+	}
+
 }
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -26,6 +27,12 @@ public class ControllerConfig {
 		return response(e.getMessage(), HttpStatus.NOT_FOUND);
 	}
 
+	@ExceptionHandler(AccessDeniedException.class)
+	ResponseEntity<Error> catchAccessDeniedException(AccessDeniedException e) {
+		logger.debug("{}", e.getMessage());
+		return response(e.getMessage(), HttpStatus.FORBIDDEN);
+	}
+
 	@ExceptionHandler(IllegalArgumentException.class)
 	ResponseEntity<Error> catchIllegalArgumentException(IllegalArgumentException e) {
 		logger.debug("{}", e, e);
@@ -13,18 +13,26 @@ import org.ihtsdo.otf.rest.client.snowowl.PathHelper;
 import org.ihtsdo.otf.rest.client.snowowl.pojo.ApiError;
 import org.ihtsdo.otf.rest.client.snowowl.pojo.Merge;
 import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.otf.rest.exception.ResourceNotFoundException;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.*;
-import org.ihtsdo.snowowl.authoring.single.api.service.BranchService;
+import org.ihtsdo.snowowl.authoring.single.api.service.ListingETagService;
+import org.ihtsdo.snowowl.authoring.single.api.service.MergeService;
+import org.ihtsdo.snowowl.authoring.single.api.service.MergeService.CompletedAction;
+import org.ihtsdo.snowowl.authoring.single.api.service.MergeService.MergeJob;
 import org.ihtsdo.snowowl.authoring.single.api.service.TaskAttachment;
 import org.ihtsdo.snowowl.authoring.single.api.service.TaskService;
 import org.ihtsdo.snowowl.authoring.single.api.service.TaskStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.function.Function;
 
 @Api("Authoring Projects")
 @RestController
@@ -35,15 +43,18 @@ public class ProjectController {
 	private TaskService taskService;
 
 	@Autowired
-	private BranchService branchService;
+	private MergeService mergeService;
+
+	@Autowired
+	private ListingETagService listingETagService;
 
 	@ApiOperation(value="List authoring Projects")
 	@ApiResponses({
 			@ApiResponse(code = 200, message = "OK")
 	})
 	@RequestMapping(value="/projects", method= RequestMethod.GET)
-	public List<AuthoringProject> listProjects() throws JiraException, BusinessServiceException {
-		return taskService.listProjects();
+	public ResponseEntity<List<AuthoringProject>> listProjects(HttpServletRequest request) throws JiraException, BusinessServiceException {
+		return getListing(request, null, taskService::listProjects, AuthoringProject::getVersion);
 	}
 
 	@ApiOperation(value="Retrieve an authoring Project")
@@ -55,30 +66,49 @@ public class ProjectController {
 		return taskService.retrieveProject(projectKey);
 	}
 
-	@ApiOperation(value="Rebase an authoring Project")
+	@ApiOperation(value="Rebase an authoring Project", notes="With async=true the rebase is started and its status resource returned as the Location.")
 	@ApiResponses({
-			@ApiResponse(code = 200, message = "OK")
+			@ApiResponse(code = 200, message = "OK"),
+			@ApiResponse(code = 202, message = "Accepted")
 	})
 	@RequestMapping(value="/projects/{projectKey}/rebase", method= RequestMethod.POST)
-	public ResponseEntity<String> rebaseProject(@PathVariable final String projectKey) throws BusinessServiceException {
+	public ResponseEntity<String> rebaseProject(@PathVariable final String projectKey,
+			@RequestParam(value = "async", defaultValue = "false") boolean async) throws BusinessServiceException {
 		String projectBranchPath = taskService.getProjectBranchPathUsingCache(projectKey);
-		Merge merge = branchService.mergeBranchSync(PathHelper.getParentPath(projectBranchPath), projectBranchPath, null);
-		return getResponseEntity(merge);
+		MergeJob job = mergeService.mergeAsync(projectKey, PathHelper.getParentPath(projectBranchPath), projectBranchPath, null);
+		return getResponseEntity(projectKey, job, async);
 	}
 
-	@ApiOperation(value="Promote an authoring Project")
+	@ApiOperation(value="Promote an authoring Project", notes="Promoted tasks are then marked as completed in the background, with progress sent as notifications. "
+			+ "With async=true the promotion is started and its status resource returned as the Location.")
 	@ApiResponses({
-			@ApiResponse(code = 200, message = "OK")
+			@ApiResponse(code = 200, message = "OK"),
+			@ApiResponse(code = 202, message = "Accepted")
 	})
 	@RequestMapping(value="/projects/{projectKey}/promote", method= RequestMethod.POST)
-	public ResponseEntity<String> promoteProject(@PathVariable final String projectKey, @RequestBody MergeRequest mergeRequest) throws BusinessServiceException {
+	public ResponseEntity<String> promoteProject(@PathVariable final String projectKey, @RequestBody MergeRequest mergeRequest,
+			@RequestParam(value = "async", defaultValue = "false") boolean async) throws BusinessServiceException {
 		String projectBranchPath = taskService.getProjectBranchPathUsingCache(projectKey);
-		Merge merge = branchService.mergeBranchSync(projectBranchPath, PathHelper.getParentPath(projectBranchPath), mergeRequest.getSourceReviewId());
-		if (merge.getStatus() == Merge.Status.COMPLETED) {
+		CompletedAction completeTasks = () -> {
 			List<Issue> promotedIssues = taskService.getTaskIssues(projectKey, TaskStatus.PROMOTED);
-			taskService.stateTransition(promotedIssues, TaskStatus.COMPLETED);
+			taskService.stateTransitionAsync(projectKey, promotedIssues, TaskStatus.COMPLETED);
+		};
+		MergeJob job = mergeService.mergeAsync(projectKey, projectBranchPath, PathHelper.getParentPath(projectBranchPath), mergeRequest.getSourceReviewId(), completeTasks);
+		return getResponseEntity(projectKey, job, async);
+	}
+
+	@ApiOperation(value="Retrieve the status of a rebase or promotion started with async=true")
+	@ApiResponses({
+			@ApiResponse(code = 200, message = "OK"),
+			@ApiResponse(code = 404, message = "Merge not found")
+	})
+	@RequestMapping(value="/projects/{projectKey}/merges/{mergeId}", method= RequestMethod.GET)
+	public ProcessStatus getMergeStatus(@PathVariable final String projectKey, @PathVariable final String mergeId) throws BusinessServiceException {
+		ProcessStatus status = mergeService.getStatus(projectKey, mergeId);
+		if (status == null) {
+			throw new ResourceNotFoundException("Merge", mergeId);
 		}
-		return getResponseEntity(merge);
+		return status;
 	}
 
 	@ApiOperation(value="Retrieve status information about the MAIN branch")
@@ -95,8 +125,8 @@ public class ProjectController {
 			@ApiResponse(code = 200, message = "OK")
 	})
 	@RequestMapping(value="/projects/{projectKey}/tasks", method= RequestMethod.GET)
-	public List<AuthoringTask> listTasks(@PathVariable final String projectKey) throws BusinessServiceException {
-		return taskService.listTasks(projectKey);
+	public ResponseEntity<List<AuthoringTask>> listTasks(@PathVariable final String projectKey, HttpServletRequest request) throws JiraException, BusinessServiceException {
+		return getListing(request, projectKey, () -> taskService.listTasks(projectKey), AuthoringTask::getVersion);
 	}
 
 	@ApiOperation(value="List authenticated user's Tasks across Projects")
@@ -104,8 +134,9 @@ public class ProjectController {
 			@ApiResponse(code = 200, message = "OK")
 	})
 	@RequestMapping(value="/projects/my-tasks", method= RequestMethod.GET)
-	public List<AuthoringTask> listMyTasks(@RequestParam(value = "excludePromoted", required = false) String excludePromoted) throws JiraException, BusinessServiceException {
-		return taskService.listMyTasks(ControllerHelper.getUsername(), excludePromoted);
+	public ResponseEntity<List<AuthoringTask>> listMyTasks(@RequestParam(value = "excludePromoted", required = false) String excludePromoted,
+			HttpServletRequest request) throws JiraException, BusinessServiceException {
+		return getListing(request, null, () -> taskService.listMyTasks(ControllerHelper.getUsername(), excludePromoted), AuthoringTask::getVersion);
 	}
 
 	@ApiOperation(value="List review tasks, with the current user or unassigned reviewer, across Projects")
@@ -113,8 +144,8 @@ public class ProjectController {
 			@ApiResponse(code = 200, message = "OK")
 	})
 	@RequestMapping(value="/projects/review-tasks", method= RequestMethod.GET)
-	public List<AuthoringTask> listMyOrUnassignedReviewTasks() throws JiraException, BusinessServiceException {
-		return taskService.listMyOrUnassignedReviewTasks();
+	public ResponseEntity<List<AuthoringTask>> listMyOrUnassignedReviewTasks(HttpServletRequest request) throws JiraException, BusinessServiceException {
+		return getListing(request, null, taskService::listMyOrUnassignedReviewTasks, AuthoringTask::getVersion);
 	}
 
 	@ApiOperation(value="Retrieve a Task within a Project")
@@ -156,32 +187,34 @@ public class ProjectController {
 		taskService.leaveCommentForTask(projectKey, taskKey, comment);
 	}
 
-	@ApiOperation(value="Rebase an authoring Task")
+	@ApiOperation(value="Rebase an authoring Task", notes="With async=true the rebase is started and its status resource returned as the Location.")
 	@ApiResponses({
-			@ApiResponse(code = 200, message = "OK")
+			@ApiResponse(code = 200, message = "OK"),
+			@ApiResponse(code = 202, message = "Accepted")
 	})
 	@RequestMapping(value="/projects/{projectKey}/tasks/{taskKey}/rebase", method= RequestMethod.POST)
 	public ResponseEntity<String> rebaseTask(@PathVariable final String projectKey,
-											 @PathVariable final String taskKey) throws BusinessServiceException {
+											 @PathVariable final String taskKey,
+											 @RequestParam(value = "async", defaultValue = "false") boolean async) throws BusinessServiceException {
 		String taskBranchPath = taskService.getTaskBranchPathUsingCache(projectKey, taskKey);
-		Merge merge = branchService.mergeBranchSync(PathHelper.getParentPath(taskBranchPath), taskBranchPath, null);
-		return getResponseEntity(merge);
+		MergeJob job = mergeService.mergeAsync(projectKey, PathHelper.getParentPath(taskBranchPath), taskBranchPath, null);
+		return getResponseEntity(projectKey, job, async);
 	}
 
-	@ApiOperation(value="Promote an authoring Task")
+	@ApiOperation(value="Promote an authoring Task", notes="With async=true the promotion is started and its status resource returned as the Location.")
 	@ApiResponses({
-			@ApiResponse(code = 200, message = "OK")
+			@ApiResponse(code = 200, message = "OK"),
+			@ApiResponse(code = 202, message = "Accepted")
 	})
 	@RequestMapping(value="/projects/{projectKey}/tasks/{taskKey}/promote", method= RequestMethod.POST)
 	public ResponseEntity<String> promoteTask(@PathVariable final String projectKey,
 											  @PathVariable final String taskKey,
-											  @RequestBody MergeRequest mergeRequest) throws BusinessServiceException {
+											  @RequestBody MergeRequest mergeRequest,
+											  @RequestParam(value = "async", defaultValue = "false") boolean async) throws BusinessServiceException {
 		String taskBranchPath = taskService.getTaskBranchPathUsingCache(projectKey, taskKey);
-		Merge merge = branchService.mergeBranchSync(taskBranchPath, PathHelper.getParentPath(taskBranchPath), mergeRequest.getSourceReviewId());
-		if (merge.getStatus() == Merge.Status.COMPLETED) {
-			taskService.stateTransition(projectKey, taskKey, TaskStatus.PROMOTED);
-		}
-		return getResponseEntity(merge);
+		MergeJob job = mergeService.mergeAsync(projectKey, taskBranchPath, PathHelper.getParentPath(taskBranchPath), mergeRequest.getSourceReviewId(),
+				() -> taskService.stateTransition(projectKey, taskKey, TaskStatus.PROMOTED));
+		return getResponseEntity(projectKey, job, async);
 	}
 	
 	@ApiOperation(value="Auto promote an authoring Task")
@@ -191,10 +224,8 @@ public class ProjectController {
 	@RequestMapping(value="/projects/{projectKey}/tasks/{taskKey}/auto-promote", method= RequestMethod.POST)
 	public ResponseEntity<String> autoPromoteTask(@PathVariable final String projectKey,
 											  @PathVariable final String taskKey) throws BusinessServiceException {
-		ProcessStatus currentProcessStatus = taskService.getAutoPromoteStatus(projectKey, taskKey);
-		if (!(null != currentProcessStatus && (currentProcessStatus.getStatus().equals("Rebasing") || currentProcessStatus.getStatus().equals("Classifying") || currentProcessStatus.getStatus().equals("Promoting")))) {
-			taskService.autoPromoteTaskToProject(projectKey, taskKey);
-		}
+		//Ignored if the task is already being auto-promoted
+		taskService.autoPromoteTaskToProject(projectKey, taskKey);
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
 	
@@ -208,6 +239,46 @@ public class ProjectController {
 		return taskService.getAutoPromoteStatus(projectKey, taskKey);
 	}
 
+	/**
+	 * Answers a listing request with an ETag, or with 304 Not Modified if the client already has the current listing.
+	 * @param projectKey the project the listing is limited to, or null if it spans projects
+	 */
+	private <T> ResponseEntity<List<T>> getListing(HttpServletRequest request, String projectKey, ListingSupplier<T> listing,
+			Function<T, String> version) throws JiraException, BusinessServiceException {
+		final String listingKey = ControllerHelper.getUsername() + " " + request.getRequestURI() + "?" + request.getQueryString();
+		final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		final long generation = listingETagService.getGeneration(projectKey);
+		if (ifNoneMatch != null) {
+			final String currentETag = listingETagService.getCurrentETag(listingKey, projectKey);
+			if (currentETag != null && ListingETagService.matches(ifNoneMatch, currentETag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+			}
+		}
+		final List<T> items = listing.get();
+		final String etag = listingETagService.issue(listingKey, generation, items, version);
+		if (ifNoneMatch != null && ListingETagService.matches(ifNoneMatch, etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		return ResponseEntity.ok().eTag(etag).body(items);
+	}
+
+	private interface ListingSupplier<T> {
+		List<T> get() throws JiraException, BusinessServiceException;
+	}
+
+	/**
+	 * Answers 202 Accepted with the merge's status resource straight away if async, otherwise waits for the merge.
+	 */
+	private ResponseEntity<String> getResponseEntity(String projectKey, MergeJob job, boolean async) throws BusinessServiceException {
+		if (async) {
+			return ResponseEntity.accepted()
+					.location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/projects/{projectKey}/merges/{mergeId}")
+							.buildAndExpand(projectKey, job.getMergeId()).toUri())
+					.build();
+		}
+		return getResponseEntity(mergeService.await(job));
+	}
+
 	private ResponseEntity<String> getResponseEntity(Merge merge) {
 		if (merge.getStatus() == Merge.Status.COMPLETED) {
 			return new ResponseEntity<>(HttpStatus.OK);
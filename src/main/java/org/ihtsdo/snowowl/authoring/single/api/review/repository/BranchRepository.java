@@ -3,7 +3,12 @@ package org.ihtsdo.snowowl.authoring.single.api.review.repository;
 import org.ihtsdo.snowowl.authoring.single.api.review.domain.Branch;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface BranchRepository extends CrudRepository<Branch, Long> {
 
 	Branch findOneByProjectAndTask(String project, String task);
+
+	List<Branch> findByTaskIn(Collection<String> tasks);
 }
@@ -4,10 +4,13 @@ import org.ihtsdo.snowowl.authoring.single.api.review.domain.Branch;
 import org.ihtsdo.snowowl.authoring.single.api.review.domain.ReviewConceptView;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewConceptViewRepository extends CrudRepository<ReviewConceptView, Long> {
 
 	List<ReviewConceptView> findByBranchAndUsernameOrderByViewDateAsc(Branch branch, String username);
 
+	List<ReviewConceptView> findByBranchInAndUsernameOrderByViewDateAsc(Collection<Branch> branches, String username);
+
 }
@@ -10,6 +10,7 @@ import org.ihtsdo.snowowl.authoring.single.api.review.pojo.ReviewMessageCreateRe
 import org.ihtsdo.snowowl.authoring.single.api.review.repository.BranchRepository;
 import org.ihtsdo.snowowl.authoring.single.api.review.repository.ReviewConceptViewRepository;
 import org.ihtsdo.snowowl.authoring.single.api.review.repository.ReviewMessageRepository;
+import org.ihtsdo.snowowl.authoring.single.api.service.ListingETagService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
@@ -32,6 +33,9 @@ public class ReviewService {
 	@Autowired
 	private ApplicationContext applicationContext;
 
+	@Autowired
+	private ListingETagService listingETagService;
+
 	@Transactional
 	public List<ReviewConcept> retrieveTaskReviewConceptDetails(String projectKey, String taskKey, String username)
 			throws BusinessServiceException {
@@ -47,25 +51,32 @@ public class ReviewService {
 	}
 
 	private List<ReviewConcept> getReviewConcepts(String username, Branch branch) {
+		if (branch == null) {
+			return new ArrayList<>();
+		}
+		return getReviewConcepts(messageRepository.findByBranch(branch),
+				reviewConceptViewRepository.findByBranchAndUsernameOrderByViewDateAsc(branch, username));
+	}
+
+	private List<ReviewConcept> getReviewConcepts(List<ReviewMessage> reviewMessages, List<ReviewConceptView> reviewConceptViews) {
 		final List<ReviewConcept> reviewConcepts = new ArrayList<>();
-		if (branch != null) {
-			final Map<String, List<ReviewMessage>> conceptMessagesMap = getConceptMessagesMap(branch);
-			final Map<String, Date> conceptViewDatesMap = getLatestConceptViewDatesMap(username, branch);
-			final Set<String> conceptIds = new HashSet<>(conceptMessagesMap.keySet());
-			conceptIds.addAll(conceptViewDatesMap.keySet());
-			for (String conceptId : conceptIds) {
-				final List<ReviewMessage> messages = conceptMessagesMap.get(conceptId);
-				reviewConcepts
-						.add(new ReviewConcept(conceptId, messages != null ? messages : new ArrayList<ReviewMessage>(),
-								conceptViewDatesMap.get(conceptId)));
-			}
+		final Map<String, List<ReviewMessage>> conceptMessagesMap = getConceptMessagesMap(reviewMessages);
+		final Map<String, Date> conceptViewDatesMap = getLatestConceptViewDatesMap(reviewConceptViews);
+		final Set<String> conceptIds = new HashSet<>(conceptMessagesMap.keySet());
+		conceptIds.addAll(conceptViewDatesMap.keySet());
+		for (String conceptId : conceptIds) {
+			final List<ReviewMessage> messages = conceptMessagesMap.get(conceptId);
+			reviewConcepts
+					.add(new ReviewConcept(conceptId, messages != null ? messages : new ArrayList<ReviewMessage>(),
+							conceptViewDatesMap.get(conceptId)));
 		}
 		return reviewConcepts;
 	}
 
-	private Map<String, Date> getLatestConceptViewDatesMap(String username, Branch branch) {
-		final List<ReviewConceptView> reviewConceptViews = reviewConceptViewRepository
-				.findByBranchAndUsernameOrderByViewDateAsc(branch, username);
+	/**
+	 * @param reviewConceptViews in ascending order of view date
+	 */
+	private Map<String, Date> getLatestConceptViewDatesMap(List<ReviewConceptView> reviewConceptViews) {
 		final Map<String, Date> reviewConceptViewDateMap = new HashMap<>();
 		for (ReviewConceptView reviewConceptView : reviewConceptViews) {
 			reviewConceptViewDateMap.put(reviewConceptView.getConceptId(), reviewConceptView.getViewDate());
@@ -76,11 +87,10 @@ public class ReviewService {
 	/**
 	 * Builds a map of conceptIds and messages with that concept in the subject.
 	 * 
-	 * @param branch
+	 * @param reviewMessages
 	 * @return
 	 */
-	private Map<String, List<ReviewMessage>> getConceptMessagesMap(Branch branch) {
-		final List<ReviewMessage> reviewMessages = messageRepository.findByBranch(branch);
+	private Map<String, List<ReviewMessage>> getConceptMessagesMap(List<ReviewMessage> reviewMessages) {
 		Map<String, List<ReviewMessage>> conceptMessagesMap = new HashMap<>();
 		for (ReviewMessage reviewMessage : reviewMessages) {
 			for (String conceptId : reviewMessage.getSubjectConceptIds()) {
@@ -102,6 +112,7 @@ public class ReviewService {
 		final Branch branch = getCreateBranch(projectKey, taskKey);
 		final ReviewMessage message = messageRepository.save(new ReviewMessage(branch, createRequest.getMessageHtml(),
 				subjectConceptIds, createRequest.isFeedbackRequested(), fromUsername));
+		listingETagService.changed(projectKey);
 		for (ReviewMessageSentListener listener : getReviewMessageSentListeners()) {
 			listener.messageSent(message);
 		}
@@ -111,6 +122,7 @@ public class ReviewService {
 	public void recordConceptView(String projectKey, String taskKey, String conceptId, String username) {
 		final Branch branch = branchRepository.findOneByProjectAndTask(projectKey, taskKey);
 		reviewConceptViewRepository.save(new ReviewConceptView(branch, conceptId, username));
+		listingETagService.changed(projectKey);
 	}
 
 	private synchronized Branch getCreateBranch(String projectKey, String taskKey) {
@@ -122,45 +134,89 @@ public class ReviewService {
 	}
 
 	public TaskMessagesDetail getTaskMessagesDetail(String projectKey, String taskKey, String username) {
+		final Branch branch = branchRepository.findOneByProjectAndTask(projectKey, taskKey);
+		return getTaskMessagesDetail(username, getReviewConcepts(username, branch));
+	}
+
+	/**
+	 * Recovers the message details of many tasks at once, querying for the branches, messages and
+	 * concept views of all the tasks together rather than once per task.
+	 * 
+	 * @param taskProjectKeys the key of each task's project, keyed on task key
+	 * @return the message details keyed on task key
+	 */
+	@Transactional
+	public Map<String, TaskMessagesDetail> getTaskMessagesDetails(Map<String, String> taskProjectKeys, String username) {
+		final Map<Long, Branch> branches = new HashMap<>();
+		if (!taskProjectKeys.isEmpty()) {
+			for (Branch branch : branchRepository.findByTaskIn(taskProjectKeys.keySet())) {
+				if (branch.getProject().equals(taskProjectKeys.get(branch.getTask()))) {
+					branches.put(branch.getId(), branch);
+				}
+			}
+		}
+		final Map<Long, List<ReviewMessage>> branchMessages = new HashMap<>();
+		final Map<Long, List<ReviewConceptView>> branchViews = new HashMap<>();
+		if (!branches.isEmpty()) {
+			for (ReviewMessage reviewMessage : messageRepository.findByBranchIn(branches.values())) {
+				branchMessages.computeIfAbsent(reviewMessage.getBranch().getId(), id -> new ArrayList<>()).add(reviewMessage);
+			}
+			for (ReviewConceptView reviewConceptView : reviewConceptViewRepository.findByBranchInAndUsernameOrderByViewDateAsc(branches.values(), username)) {
+				branchViews.computeIfAbsent(reviewConceptView.getBranch().getId(), id -> new ArrayList<>()).add(reviewConceptView);
+			}
+		}
+		final Map<String, TaskMessagesDetail> details = new HashMap<>();
+		for (Branch branch : branches.values()) {
+			final List<ReviewConcept> reviewConcepts = getReviewConcepts(
+					branchMessages.getOrDefault(branch.getId(), Collections.emptyList()),
+					branchViews.getOrDefault(branch.getId(), Collections.emptyList()));
+			details.put(branch.getTask(), getTaskMessagesDetail(username, reviewConcepts));
+		}
+		for (String taskKey : taskProjectKeys.keySet()) {
+			if (!details.containsKey(taskKey)) {
+				details.put(taskKey, getTaskMessagesDetail(username, Collections.emptyList()));
+			}
+		}
+		return details;
+	}
+
+	private TaskMessagesDetail getTaskMessagesDetail(String username, List<ReviewConcept> reviewConcepts) {
 		TaskMessagesDetail detail = new TaskMessagesDetail();
 
 		detail.setTaskMessagesStatus(TaskMessagesStatus.none);
-		final Branch branch = branchRepository.findOneByProjectAndTask(projectKey, taskKey);
-		if (branch != null) {
-			final List<ReviewConcept> reviewConcepts = getReviewConcepts(username, branch);
-			for (ReviewConcept reviewConcept : reviewConcepts) {
-
-				// get the view date and save in task messages detail
-				final Date viewDate = reviewConcept.getViewDate();
-				detail.setViewDate(viewDate);
-
-				// check dates and messages status
-				for (ReviewMessage reviewMessage : reviewConcept.getMessages()) {
-
-					final Date messageDate = reviewMessage.getCreationDate();
-
-					// If last message date null, simply set
-					if (detail.getLastMessageDate() == null) {
-						detail.setLastMessageDate(messageDate);
-					}
-
-					// otherwise check for later date
-					else if (messageDate != null && messageDate.after(detail.getLastMessageDate())) {
-						detail.setLastMessageDate(messageDate);
-					}
-
-					// if another user left message after view date, mark unread
-					if (!username.equals(reviewMessage.getFromUsername()) && (viewDate == null || messageDate.after(viewDate))) {
-						detail.setTaskMessagesStatus(TaskMessagesStatus.unread);
-					}
-
-					// if not already marked unread, mark read
-					else if (!detail.getTaskMessagesStatus().equals(TaskMessagesStatus.unread)) {
-						detail.setTaskMessagesStatus(TaskMessagesStatus.read);
-					}
+		for (ReviewConcept reviewConcept : reviewConcepts) {
+
+			// get the view date and save in task messages detail
+			final Date viewDate = reviewConcept.getViewDate();
+			detail.setViewDate(viewDate);
+
+			// check dates and messages status
+			for (ReviewMessage reviewMessage : reviewConcept.getMessages()) {
+
+				final Date messageDate = reviewMessage.getCreationDate();
+				detail.setMessageCount(detail.getMessageCount() + 1);
+
+				// If last message date null, simply set
+				if (detail.getLastMessageDate() == null) {
+					detail.setLastMessageDate(messageDate);
+				}
+
+				// otherwise check for later date
+				else if (messageDate != null && messageDate.after(detail.getLastMessageDate())) {
+					detail.setLastMessageDate(messageDate);
 				}
 
+				// if another user left message after view date, mark unread
+				if (!username.equals(reviewMessage.getFromUsername()) && (viewDate == null || messageDate.after(viewDate))) {
+					detail.setTaskMessagesStatus(TaskMessagesStatus.unread);
+				}
+
+				// if not already marked unread, mark read
+				else if (!detail.getTaskMessagesStatus().equals(TaskMessagesStatus.unread)) {
+					detail.setTaskMessagesStatus(TaskMessagesStatus.read);
+				}
 			}
+
 		}
 		return detail;
 	}
@@ -10,6 +10,8 @@ public class TaskMessagesDetail {
 	
 	private Date lastMessageDate = null;
 
+	private int messageCount = 0;
+
 	public TaskMessagesStatus getTaskMessagesStatus() {
 		return taskMessagesStatus;
 	}
@@ -34,10 +36,18 @@ public class TaskMessagesDetail {
 		this.lastMessageDate = lastMessageDate;
 	}
 
+	public int getMessageCount() {
+		return messageCount;
+	}
+
+	public void setMessageCount(int messageCount) {
+		this.messageCount = messageCount;
+	}
+
 	@Override
 	public String toString() {
 		return "TaskMessagesDetail [taskMessagesStatus=" + taskMessagesStatus + ", viewDate=" + viewDate
-				+ ", lastMessageDate=" + lastMessageDate + "]";
+				+ ", lastMessageDate=" + lastMessageDate + ", messageCount=" + messageCount + "]";
 	}
 
 	@Override
@@ -45,6 +55,7 @@ public class TaskMessagesDetail {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((lastMessageDate == null) ? 0 : lastMessageDate.hashCode());
+		result = prime * result + messageCount;
 		result = prime * result + ((taskMessagesStatus == null) ? 0 : taskMessagesStatus.hashCode());
 		result = prime * result + ((viewDate == null) ? 0 : viewDate.hashCode());
 		return result;
@@ -64,6 +75,8 @@ public class TaskMessagesDetail {
 				return false;
 		} else if (!lastMessageDate.equals(other.lastMessageDate))
 			return false;
+		if (messageCount != other.messageCount)
+			return false;
 		if (taskMessagesStatus == null) {
 			if (other.taskMessagesStatus != null)
 				return false;
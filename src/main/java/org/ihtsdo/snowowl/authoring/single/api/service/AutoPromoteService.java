@@ -0,0 +1,336 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import org.ihtsdo.otf.rest.client.snowowl.PathHelper;
+import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClient;
+import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClientFactory;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.ApiError;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.ClassificationResults;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.Merge;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.MergeReviewsResults;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringTask;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.EntityType;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.Notification;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.ProcessStatus;
+import org.ihtsdo.snowowl.authoring.single.api.review.pojo.BranchState;
+import org.ihtsdo.sso.integration.SecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.ihtsdo.otf.rest.client.snowowl.pojo.MergeReviewsResults.MergeReviewStatus.CURRENT;
+
+/**
+ * Auto-promotes tasks to their project: the task is rebased, then classified and, if classification
+ * brings no changes, promoted.  Each promotion is a state machine advanced in short steps on a shared
+ * scheduler, so waiting on Snow Owl never ties up a thread and promotions on different projects run side by side.
+ * A promotion holds its task and project branches until it finishes, other promotions wanting either wait their turn.
+ */
+public class AutoPromoteService {
+
+	public static final String QUEUED = "Queued";
+	public static final String REBASING = "Rebasing";
+	public static final String REBASED_WITH_CONFLICTS = "Rebased with conflicts";
+	public static final String CLASSIFYING = "Classifying";
+	public static final String CLASSIFIED_WITH_RESULTS = "Classified with results";
+	public static final String PROMOTING = "Promoting";
+	public static final String COMPLETED = "Completed";
+	public static final String FAILED = "Failed";
+
+	private static final int WORKERS = 4;
+	private static final int BRANCH_RETRY_SECONDS = 10;
+	private static final int MAX_WAIT_SECONDS = 60 * 60;
+
+	@Autowired
+	private TaskService taskService;
+
+	@Autowired
+	private ClassificationService classificationService;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private SnowOwlRestClientFactory snowOwlRestClientFactory;
+
+	@Autowired
+	private MergeService mergeService;
+
+	@Autowired
+	private ListingETagService listingETagService;
+
+	private final Map<String, ProcessStatus> statuses = new ConcurrentHashMap<>();
+	//Branch path to the key of the task whose promotion holds it
+	private final Map<String, String> branchOwners = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(WORKERS);
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * Queues the task for auto-promotion, unless it is already being auto-promoted.
+	 * @return true if the task was queued
+	 */
+	public boolean autoPromote(String projectKey, String taskKey) {
+		final Promotion promotion = new Promotion(projectKey, taskKey, SecurityContextHolder.getContext().getAuthentication());
+		final boolean[] queued = {false};
+		statuses.compute(getStatusKey(projectKey, taskKey), (key, current) -> {
+			if (current != null && isRunning(current)) {
+				return current;
+			}
+			queued[0] = true;
+			return new ProcessStatus(QUEUED, "");
+		});
+		if (queued[0]) {
+			promotion.next(promotion::acquireBranches);
+		}
+		return queued[0];
+	}
+
+	public ProcessStatus getStatus(String projectKey, String taskKey) {
+		return statuses.get(getStatusKey(projectKey, taskKey));
+	}
+
+	public static boolean isRunning(ProcessStatus status) {
+		return QUEUED.equals(status.getStatus()) || REBASING.equals(status.getStatus())
+				|| CLASSIFYING.equals(status.getStatus()) || PROMOTING.equals(status.getStatus());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private String getStatusKey(String projectKey, String taskKey) {
+		return projectKey + "|" + taskKey;
+	}
+
+	private interface Step {
+		void run() throws Exception;
+	}
+
+	private class Promotion {
+
+		private final String projectKey;
+		private final String taskKey;
+		private final Authentication authentication;
+		private final String username;
+
+		private String taskBranchPath;
+		private String projectBranchPath;
+		private String mergeReviewId;
+		//Reported if a step fails, rebase failures having always been reported as conflicts
+		private String failureStatus = FAILED;
+
+		private int pollDelaySeconds;
+		private int totalWaitSeconds;
+		private int branchWaitSeconds;
+
+		Promotion(String projectKey, String taskKey, Authentication authentication) {
+			this.projectKey = projectKey;
+			this.taskKey = taskKey;
+			this.authentication = authentication;
+			this.username = SecurityUtil.getUsername();
+		}
+
+		private void acquireBranches() throws Exception {
+			if (taskBranchPath == null) {
+				taskBranchPath = taskService.getTaskBranchPathUsingCache(projectKey, taskKey);
+				projectBranchPath = PathHelper.getParentPath(taskBranchPath);
+			}
+			if (!lockBranches()) {
+				branchWaitSeconds += BRANCH_RETRY_SECONDS;
+				if (branchWaitSeconds > MAX_WAIT_SECONDS) {
+					//Fails the promotion, so the task can be queued again once whatever holds the branches is done
+					throw new TimeoutException("Timed out waiting for branch " + taskBranchPath + " or " + projectBranchPath + " to be released");
+				}
+				logger.info("Auto promotion of {} waiting for branch {} or {} to be released", taskKey, taskBranchPath, projectBranchPath);
+				after(BRANCH_RETRY_SECONDS, this::acquireBranches);
+				return;
+			}
+			startRebase();
+		}
+
+		private void startRebase() throws Exception {
+			failureStatus = REBASED_WITH_CONFLICTS;
+			setStatus(REBASING, "");
+			notify(EntityType.Rebase, "Running auto rebase authoring task");
+			AuthoringTask authoringTask = taskService.retrieveTask(projectKey, taskKey);
+			String branchState = authoringTask.getBranchState();
+			// Will skip rebase process if the branch state is FORWARD or UP_TO_DATE
+			if (BranchState.FORWARD.toString().equalsIgnoreCase(branchState) || BranchState.UP_TO_DATE.toString().equalsIgnoreCase(branchState)) {
+				startClassification();
+				return;
+			}
+			mergeReviewId = getClient().createBranchMergeReviews(projectBranchPath, taskBranchPath);
+			startPolling(this::checkMergeReview);
+		}
+
+		private void checkMergeReview() throws Exception {
+			SnowOwlRestClient client = getClient();
+			MergeReviewsResults mergeReview = client.getMergeReviewsResult(mergeReviewId);
+			if (mergeReview.getStatus() != CURRENT) {
+				poll(this::checkMergeReview, "Timed out waiting for merge review " + mergeReviewId);
+			} else if (client.isNoMergeConflict(mergeReviewId)) {
+				mergeService.mergeAsync(projectKey, projectBranchPath, taskBranchPath, null).getResult()
+						.whenComplete((merge, e) -> next(() -> rebased(merge, e)));
+			} else {
+				notify(EntityType.Rebase, "Rebase has conflicts");
+				finish(REBASED_WITH_CONFLICTS, "");
+			}
+		}
+
+		private void rebased(Merge merge, Throwable failure) throws Exception {
+			if (failure != null) {
+				throw new Exception("Failed to rebase", failure);
+			}
+			if (merge.getStatus() == Merge.Status.COMPLETED) {
+				startClassification();
+			} else {
+				String message = getMessage(merge);
+				notify(EntityType.Rebase, message);
+				finish(REBASED_WITH_CONFLICTS, message);
+			}
+		}
+
+		private void startClassification() throws Exception {
+			failureStatus = FAILED;
+			setStatus(CLASSIFYING, "");
+			notify(EntityType.Classification, "Running classification authoring task");
+			CompletableFuture<ClassificationResults> classification;
+			try {
+				classification = classificationService.startClassificationAsync(projectKey, taskKey, taskBranchPath, username);
+			} catch (Exception e) {
+				notify(EntityType.Classification, "Failed to start classification.");
+				throw e;
+			}
+			//The classification reports its own failures, this just makes sure we don't wait forever
+			scheduler.schedule(() -> classification.completeExceptionally(new TimeoutException("Timed out waiting for classification of " + taskBranchPath)),
+					MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+			classification.whenComplete((results, e) -> next(() -> classified(results, e)));
+		}
+
+		private void classified(ClassificationResults results, Throwable failure) throws Exception {
+			if (failure != null) {
+				throw new Exception("Failed to classify", failure);
+			}
+			if (!ClassificationResults.ClassificationStatus.COMPLETED.toString().equals(results.getStatus())) {
+				throw new Exception("Classification of " + taskBranchPath + " ended with status " + results.getStatus());
+			}
+			if (results.getRelationshipChangesCount() != 0) {
+				finish(CLASSIFIED_WITH_RESULTS, "");
+				return;
+			}
+			setStatus(PROMOTING, "");
+			notify(EntityType.Classification, "Running promote authoring task");
+			mergeService.mergeAsync(projectKey, taskBranchPath, projectBranchPath, mergeReviewId).getResult()
+					.whenComplete((merge, e) -> next(() -> promoted(merge, e)));
+		}
+
+		private void promoted(Merge merge, Throwable failure) throws Exception {
+			if (failure != null) {
+				throw new Exception("Failed to promote", failure);
+			}
+			if (merge.getStatus() == Merge.Status.COMPLETED) {
+				notify(EntityType.BranchState, "Success to auto promote task");
+				taskService.stateTransition(projectKey, taskKey, TaskStatus.PROMOTED);
+				finish(COMPLETED, "");
+			} else {
+				finish(FAILED, getMessage(merge));
+			}
+		}
+
+		private boolean lockBranches() {
+			String owner = getStatusKey(projectKey, taskKey);
+			if (branchOwners.putIfAbsent(taskBranchPath, owner) != null) {
+				return false;
+			}
+			if (branchOwners.putIfAbsent(projectBranchPath, owner) != null) {
+				branchOwners.remove(taskBranchPath, owner);
+				return false;
+			}
+			return true;
+		}
+
+		private void releaseBranches() {
+			String owner = getStatusKey(projectKey, taskKey);
+			if (taskBranchPath != null) {
+				branchOwners.remove(taskBranchPath, owner);
+				branchOwners.remove(projectBranchPath, owner);
+			}
+		}
+
+		/**
+		 * Polls Snow Owl with the same backoff as merges, starting at four seconds and rising to ten.
+		 */
+		private void startPolling(Step check) {
+			pollDelaySeconds = 4;
+			totalWaitSeconds = 0;
+			after(pollDelaySeconds, check);
+		}
+
+		private void poll(Step check, String timeoutMessage) throws TimeoutException {
+			totalWaitSeconds += pollDelaySeconds;
+			if (totalWaitSeconds >= MAX_WAIT_SECONDS) {
+				throw new TimeoutException(timeoutMessage);
+			}
+			if (pollDelaySeconds < 10) {
+				pollDelaySeconds += 2;
+			}
+			after(pollDelaySeconds, check);
+		}
+
+		private void next(Step step) {
+			scheduler.execute(() -> advance(step));
+		}
+
+		private void after(int delaySeconds, Step step) {
+			scheduler.schedule(() -> advance(step), delaySeconds, TimeUnit.SECONDS);
+		}
+
+		private void advance(Step step) {
+			SecurityContextHolder.getContext().setAuthentication(authentication);
+			try {
+				step.run();
+			} catch (Exception e) {
+				logger.error("Auto promotion of {} failed", taskKey, e);
+				finish(failureStatus, e.getMessage());
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		}
+
+		private void setStatus(String status, String message) {
+			statuses.put(getStatusKey(projectKey, taskKey), new ProcessStatus(status, message));
+		}
+
+		private void finish(String status, String message) {
+			setStatus(status, message);
+			releaseBranches();
+			//Rebasing, classifying and promoting all change what the task listings show
+			listingETagService.changed(projectKey);
+		}
+
+		private void notify(EntityType entityType, String event) {
+			notificationService.queueNotification(username, new Notification(projectKey, taskKey, entityType, event));
+		}
+
+		private String getMessage(Merge merge) {
+			ApiError apiError = merge.getApiError();
+			return apiError != null ? apiError.getMessage() : null;
+		}
+
+		private SnowOwlRestClient getClient() {
+			return snowOwlRestClientFactory.getClient();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import org.ihtsdo.otf.rest.client.snowowl.pojo.Branch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The branches used while building one project or task list. Callers prefetch the children of the parent paths
+ * they are about to look under, one request each, and every lookup after that is answered from memory.
+ * A lookup is only used for the one list so it never answers with anything older than the list itself.
+ */
+public class BranchLookup {
+
+	private final BranchService branchService;
+
+	//Children of each prefetched parent path, by path
+	private final Map<String, Map<String, Branch>> children = new ConcurrentHashMap<>();
+	//Branches fetched one at a time, empty where the branch does not exist
+	private final Map<String, Optional<Branch>> branches = new ConcurrentHashMap<>();
+
+	BranchLookup(BranchService branchService) {
+		this.branchService = branchService;
+	}
+
+	/**
+	 * Fetches the children of the path in one request, unless that has already been done.
+	 */
+	public void prefetchChildren(String parentPath) throws ServiceException {
+		if (!children.containsKey(parentPath)) {
+			final Map<String, Branch> childBranches = new HashMap<>();
+			for (Branch branch : branchService.getChildBranches(parentPath)) {
+				childBranches.put(branch.getPath(), branch);
+			}
+			children.put(parentPath, childBranches);
+		}
+	}
+
+	/**
+	 * @return the branch, from the prefetched children of its parent if there are any, otherwise fetched once for this lookup.
+	 */
+	public Branch getBranchOrNull(String branchPath) throws ServiceException {
+		final int index = branchPath.lastIndexOf('/');
+		if (index != -1) {
+			final Map<String, Branch> siblings = children.get(branchPath.substring(0, index));
+			if (siblings != null) {
+				return siblings.get(branchPath);
+			}
+		}
+		Optional<Branch> branch = branches.get(branchPath);
+		if (branch == null) {
+			branch = Optional.ofNullable(branchService.getBranchOrNull(branchPath));
+			branches.put(branchPath, branch);
+		}
+		return branch.orElse(null);
+	}
+
+}
@@ -0,0 +1,173 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.ihtsdo.otf.rest.client.snowowl.PathHelper;
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.EntityType;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.Notification;
+import org.ihtsdo.sso.integration.SecurityUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates task branches in the background as soon as their tasks are created, so the branch is there by the time
+ * anyone opens the task. Tasks created together, such as by a batch import, share one check of their project branch
+ * and their branches are created a few at a time.
+ */
+public class BranchProvisioningService {
+
+	public static final String PENDING = "PENDING";
+	public static final String READY = "READY";
+	public static final String FAILED = "FAILED";
+
+	private static final int PROJECT_BRANCH_CHECK_MINUTES = 10;
+	private static final int STATUS_RETENTION_HOURS = 24;
+	private static final int MAX_STATUSES = 10000;
+
+	@Autowired
+	private BranchService branchService;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Value("${branches.provisioningWorkers}")
+	private int provisioningWorkers;
+
+	private ExecutorService executor;
+
+	//Project branches which exist or are being created, by path
+	private Cache<String, CompletableFuture<Void>> projectBranches;
+
+	//Creation of each task branch, by path
+	private Cache<String, CompletableFuture<Void>> taskBranches;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	@PostConstruct
+	public void init() {
+		executor = Executors.newFixedThreadPool(provisioningWorkers);
+		projectBranches = CacheBuilder.newBuilder()
+				.expireAfterWrite(PROJECT_BRANCH_CHECK_MINUTES, TimeUnit.MINUTES)
+				.build();
+		taskBranches = CacheBuilder.newBuilder()
+				.expireAfterWrite(STATUS_RETENTION_HOURS, TimeUnit.HOURS)
+				.maximumSize(MAX_STATUSES)
+				.build();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Queues creation of the task branch, and its project branch if needed, as the current user.
+	 * The user is only sent a notification if the branch fails, the task's provisioning status shows when it is ready,
+	 * so that creating many tasks at once doesn't flood them with notifications.
+	 * @return the provisioning status of the branch
+	 */
+	public String provision(String projectKey, String taskKey, String taskBranchPath) {
+		final String username = SecurityUtil.getUsername();
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		final CompletableFuture<Void> taskBranch = getProjectBranch(PathHelper.getParentPath(taskBranchPath), authentication)
+				.thenRunAsync(() -> createBranch(taskBranchPath, authentication), executor);
+		taskBranches.put(taskBranchPath, taskBranch);
+		taskBranch.whenComplete((result, e) -> {
+			if (e != null) {
+				logger.error("Failed to create branch {} for task {}", taskBranchPath, taskKey, e);
+				notificationService.queueNotification(username, new Notification(projectKey, taskKey, EntityType.BranchState, "Failed to create task branch"));
+			} else {
+				logger.info("Created branch {} for task {}", taskBranchPath, taskKey);
+			}
+		});
+		return getStatus(taskBranchPath);
+	}
+
+	/**
+	 * @return the provisioning status of a task branch queued here, or null if there is none.
+	 */
+	public String getStatus(String taskBranchPath) {
+		final CompletableFuture<Void> taskBranch = taskBranches.getIfPresent(taskBranchPath);
+		if (taskBranch == null) {
+			return null;
+		}
+		if (!taskBranch.isDone()) {
+			return PENDING;
+		}
+		return taskBranch.isCompletedExceptionally() ? FAILED : READY;
+	}
+
+	/**
+	 * Waits for a task branch queued here to be created, for callers which go on to use the branch straight away.
+	 * A branch not queued here, for example because its status has expired or it was queued before a restart,
+	 * is created now if it doesn't exist.
+	 */
+	public void awaitBranch(String taskBranchPath) throws BusinessServiceException {
+		final CompletableFuture<Void> taskBranch = taskBranches.getIfPresent(taskBranchPath);
+		if (taskBranch == null) {
+			try {
+				branchService.createProjectBranchIfNeeded(taskBranchPath);
+			} catch (ServiceException e) {
+				throw new BusinessServiceException("Failed to create branch " + taskBranchPath, e);
+			}
+			return;
+		}
+		try {
+			taskBranch.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessServiceException("Interrupted waiting for branch " + taskBranchPath, e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+			throw new BusinessServiceException("Failed to create branch " + taskBranchPath, cause);
+		}
+	}
+
+	/**
+	 * @return the check, and creation if needed, of the project branch, shared by all tasks of the project created meanwhile.
+	 */
+	private CompletableFuture<Void> getProjectBranch(String projectBranchPath, Authentication authentication) {
+		final CompletableFuture<Void> projectBranch = new CompletableFuture<>();
+		final CompletableFuture<Void> existing = projectBranches.asMap().putIfAbsent(projectBranchPath, projectBranch);
+		if (existing != null) {
+			return existing;
+		}
+		executor.execute(() -> {
+			try {
+				createBranch(projectBranchPath, authentication);
+				projectBranch.complete(null);
+			} catch (CompletionException e) {
+				//The next task will try again
+				projectBranches.asMap().remove(projectBranchPath, projectBranch);
+				projectBranch.completeExceptionally(e.getCause());
+			}
+		});
+		return projectBranch;
+	}
+
+	private void createBranch(String branchPath, Authentication authentication) {
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		try {
+			branchService.createProjectBranchIfNeeded(branchPath);
+		} catch (ServiceException e) {
+			throw new CompletionException(e);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+}
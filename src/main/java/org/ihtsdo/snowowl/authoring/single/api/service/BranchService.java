@@ -1,28 +1,75 @@
 package org.ihtsdo.snowowl.authoring.single.api.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import org.ihtsdo.otf.rest.client.RestClientException;
-import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClient;
+import org.ihtsdo.otf.rest.client.snowowl.PathHelper;
 import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClientFactory;
 import org.ihtsdo.otf.rest.client.snowowl.pojo.Branch;
-import org.ihtsdo.otf.rest.client.snowowl.pojo.Merge;
-import org.ihtsdo.otf.rest.exception.BusinessServiceException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.ihtsdo.sso.integration.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-import static org.ihtsdo.otf.rest.client.snowowl.pojo.Merge.Status.IN_PROGRESS;
-import static org.ihtsdo.otf.rest.client.snowowl.pojo.Merge.Status.SCHEDULED;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 public class BranchService {
-	
+
 	@Autowired
 	private SnowOwlRestClientFactory snowOwlRestClientFactory;
 
+	@Value("${snowowl.url}")
+	private String snowOwlUrl;
+
+	@Value("${snowowl.branchesPath}")
+	private String branchesPath;
+
+	@Value("${snowowl.connectTimeoutMillis}")
+	private int connectTimeoutMillis;
+
+	@Value("${snowowl.readTimeoutMillis}")
+	private int readTimeoutMillis;
+
+	@Value("${branches.metadataCacheSeconds}")
+	private long metadataCacheSeconds;
+
+	@Value("${branches.metadataCacheSize}")
+	private long metadataCacheSize;
+
+	//Each branch's own metadata, inherited metadata is merged on the way out
+	private Cache<String, BranchMetadata> branchMetadataCache;
+
+	//For the Snow Owl calls the Snow Owl client doesn't offer
+	private RestTemplate restTemplate;
+
+	@PostConstruct
+	public void init() {
+		branchMetadataCache = CacheBuilder.newBuilder()
+				.expireAfterWrite(metadataCacheSeconds, TimeUnit.SECONDS)
+				.maximumSize(metadataCacheSize)
+				.build();
+		final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(connectTimeoutMillis);
+		requestFactory.setReadTimeout(readTimeoutMillis);
+		restTemplate = new RestTemplate(requestFactory);
+	}
+
 	public String getBranchState(String branchPath) throws ServiceException {
 		try {
 			return snowOwlRestClientFactory.getClient().getBranch(branchPath).getState();
@@ -33,12 +80,52 @@ public class BranchService {
 
 	public Branch getBranchOrNull(String branchPath) throws ServiceException {
 		try {
-			return snowOwlRestClientFactory.getClient().getBranch(branchPath);
+			final Branch branch = snowOwlRestClientFactory.getClient().getBranch(branchPath);
+			recordBranch(branchPath, branch);
+			return branch;
 		} catch (RestClientException e) {
 			throw new ServiceException("Failed to fetch branch " + branchPath, e);
 		}
 	}
 
+	/**
+	 * @return the branches directly under the path, fetched in one request.
+	 */
+	public List<Branch> getChildBranches(String parentPath) throws ServiceException {
+		final URI uri = UriComponentsBuilder.fromHttpUrl(snowOwlUrl)
+				.path(branchesPath + parentPath + "/children")
+				.queryParam("immediateChildren", true)
+				.build().toUri();
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+		//The same single sign on cookie the Snow Owl client sends
+		headers.add(HttpHeaders.COOKIE, SecurityUtil.getAuthenticationToken());
+		final ChildBranches children;
+		try {
+			children = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), ChildBranches.class).getBody();
+		} catch (org.springframework.web.client.RestClientException e) {
+			throw new ServiceException("Failed to fetch children of branch " + parentPath, e);
+		}
+		final List<Branch> branches = new ArrayList<>();
+		if (children != null && children.items != null) {
+			for (Branch branch : children.items) {
+				//Older Snow Owl versions ignore immediateChildren and list every descendant
+				if (parentPath.equals(PathHelper.getParentPath(branch.getPath()))) {
+					recordBranch(branch.getPath(), branch);
+					branches.add(branch);
+				}
+			}
+		}
+		return branches;
+	}
+
+	/**
+	 * @return a lookup to answer the branch lookups of one list build from memory.
+	 */
+	public BranchLookup newLookup() {
+		return new BranchLookup(this);
+	}
+
 	public String getBranchStateOrNull(String branchPath) throws ServiceException {
 		final Branch branchOrNull = getBranchOrNull(branchPath);
 		return branchOrNull == null ? null : branchOrNull.getState();
@@ -47,6 +134,7 @@ public class BranchService {
 	private void createBranch(String branchPath) throws ServiceException {
 		try {
 			snowOwlRestClientFactory.getClient().createBranch(branchPath);
+			branchChanged(branchPath);
 		} catch (RestClientException e) {
 			throw new ServiceException("Failed to create branch " + branchPath, e);
 		}
@@ -58,54 +146,58 @@ public class BranchService {
 		}
 	}
 
+	/**
+	 * Returns the branch metadata merged with that of its ancestors, deeper branches taking precedence.
+	 * The branch itself is always fetched, as its lock and other metadata may have just changed. The metadata of its
+	 * ancestors is cached, so sibling branches share the lookups of their ancestors.
+	 */
 	public Map<String, Object> getBranchMetadataIncludeInherited(String path) throws ServiceException {
-		Map<String, Object> mergedMetadata = null;
+		final Map<String, Object> mergedMetadata = new HashMap<>();
 		List<String> stackPaths = getBranchPathStack(path);
 		for (String stackPath : stackPaths) {
-			final Branch branch = getBranchOrNull(stackPath);
-			final Map<String, Object> metadata = branch.getMetadata();
-			if (mergedMetadata == null) {
-				mergedMetadata = metadata;
-			} else {
-				// merge metadata
-				for (String key : metadata.keySet()) {
-					if (!key.equals("lock") || stackPath.equals(path)) { // Only copy lock info from the deepest branch
-						mergedMetadata.put(key, metadata.get(key));
-					}
+			final Map<String, Object> metadata = getBranchMetadata(stackPath, stackPath.equals(path));
+			for (String key : metadata.keySet()) {
+				if (!key.equals("lock") || stackPath.equals(path)) { // Only copy lock info from the deepest branch
+					mergedMetadata.put(key, metadata.get(key));
 				}
 			}
 		}
 		return mergedMetadata;
 	}
 
-	public Merge mergeBranchSync(String sourcePath, String targetPath, String reviewId) throws BusinessServiceException {
-		Logger logger = LoggerFactory.getLogger(getClass());
-		logger.info("Attempting branch merge from '{}' to '{}'", sourcePath, targetPath);
-		try {
-			SnowOwlRestClient client = snowOwlRestClientFactory.getClient();
-			String mergeId = client.startMerge(sourcePath, targetPath, reviewId);
-			Merge merge;
-			int sleepSeconds = 4;
-			int totalWait = 0;
-			int maxTotalWait = 60 * 60;
-			try {
-				do {
-					Thread.sleep(1000 * sleepSeconds);
-					totalWait += sleepSeconds;
-					merge = client.getMerge(mergeId);
-					if (sleepSeconds < 10) {
-						sleepSeconds+=2;
-					}
-				} while (totalWait < maxTotalWait && (merge.getStatus() == SCHEDULED || merge.getStatus() == IN_PROGRESS));
-
-				logger.info("Branch merge from '{}' to '{}' end status is {} {}", sourcePath, targetPath, merge.getStatus(), merge.getApiError() == null ? "" : merge.getApiError());
-				return merge;
-
-			} catch (InterruptedException | RestClientException e) {
-				throw new BusinessServiceException("Failed to fetch merge status.", e);
+	/**
+	 * Drops anything cached about the branch, for when it has been changed through another route such as a merge.
+	 */
+	public void branchChanged(String branchPath) {
+		branchMetadataCache.invalidate(branchPath);
+	}
+
+	private Map<String, Object> getBranchMetadata(String branchPath, boolean fresh) throws ServiceException {
+		if (!fresh) {
+			final BranchMetadata cached = branchMetadataCache.getIfPresent(branchPath);
+			if (cached != null) {
+				return cached.metadata;
 			}
-		} catch (RestClientException e) {
-			throw new BusinessServiceException("Failed to start merge.", e);
+		}
+		final Branch branch = getBranchOrNull(branchPath);
+		if (branch == null) {
+			throw new ServiceException("Branch " + branchPath + " not found");
+		}
+		return branch.getMetadata() != null ? branch.getMetadata() : Collections.emptyMap();
+	}
+
+	/**
+	 * Keeps the cached metadata in step with every fetch of the branch.
+	 */
+	private void recordBranch(String branchPath, Branch branch) {
+		if (branch == null) {
+			branchMetadataCache.invalidate(branchPath);
+			return;
+		}
+		final BranchMetadata latest = new BranchMetadata(String.valueOf(branch.getHeadTimestamp()), branch.getMetadata());
+		final BranchMetadata cached = branchMetadataCache.getIfPresent(branchPath);
+		if (cached == null || !cached.equals(latest)) {
+			branchMetadataCache.put(branchPath, latest);
 		}
 	}
 
@@ -120,4 +212,34 @@ public class BranchService {
 		return Lists.reverse(paths);
 	}
 
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	static final class ChildBranches {
+
+		public List<Branch> items;
+	}
+
+	private static final class BranchMetadata {
+
+		private final String headTimestamp;
+		private final Map<String, Object> metadata;
+
+		private BranchMetadata(String headTimestamp, Map<String, Object> metadata) {
+			this.headTimestamp = headTimestamp;
+			this.metadata = metadata != null ? Collections.unmodifiableMap(new HashMap<>(metadata)) : Collections.emptyMap();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			BranchMetadata that = (BranchMetadata) o;
+			return Objects.equals(headTimestamp, that.headTimestamp) && Objects.equals(metadata, that.metadata);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(headTimestamp, metadata);
+		}
+	}
+
 }
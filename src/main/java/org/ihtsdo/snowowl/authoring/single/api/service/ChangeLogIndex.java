@@ -0,0 +1,55 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import net.rcarz.jiraclient.ChangeLog;
+import net.rcarz.jiraclient.ChangeLogEntry;
+import net.rcarz.jiraclient.ChangeLogItem;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most recent date each field of an issue changed to each value, as of the issue's updated timestamp.
+ */
+class ChangeLogIndex {
+
+	private final String updated;
+	private final Map<String, Date> latestChanges = new HashMap<>();
+
+	ChangeLogIndex(String updated, ChangeLog changeLog) {
+		this.updated = updated;
+		if (changeLog != null) {
+			// Most recent change first, so only that one is kept
+			final List<ChangeLogEntry> entries = new ArrayList<>(changeLog.getEntries());
+			entries.sort(TaskService.CHANGELOG_ID_COMPARATOR_DESC);
+			for (ChangeLogEntry entry : entries) {
+				for (ChangeLogItem changeItem : entry.getItems()) {
+					if (changeItem.getField() != null && changeItem.getToString() != null) {
+						latestChanges.putIfAbsent(getKey(changeItem.getField(), changeItem.getToString()), entry.getCreated());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the issue has not been updated since this index was built.
+	 */
+	boolean isCurrent(String issueUpdated) {
+		return updated != null && updated.equals(issueUpdated);
+	}
+
+	/**
+	 * @return when the field last changed to the value, or null if it never has.
+	 */
+	Date getDateOfChange(String fieldName, String newValue) {
+		return latestChanges.get(getKey(fieldName, newValue));
+	}
+
+	private static String getKey(String fieldName, String newValue) {
+		return fieldName + "\u0000" + newValue;
+	}
+
+}
@@ -19,6 +19,7 @@ import us.monoid.json.JSONException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.concurrent.CompletableFuture;
 
 public class ClassificationService {
 	
@@ -33,9 +34,25 @@ public class ClassificationService {
 
 	private Logger logger = LoggerFactory.getLogger(getClass());
 
-	public synchronized Classification startClassification(String projectKey, String taskKey, String branchPath, String username) throws RestClientException, JSONException, BusinessServiceException {
+	public Classification startClassification(String projectKey, String taskKey, String branchPath, String username) throws RestClientException, JSONException, BusinessServiceException {
+		return startClassification(projectKey, taskKey, branchPath, username, new CompletableFuture<>());
+	}
+
+	/**
+	 * Starts a classification as per {@link #startClassification(String, String, String, String)}, for callers
+	 * that need to act on the outcome without waiting for it.
+	 * @return completed with the final results once the classification has finished, or exceptionally if it failed
+	 */
+	public CompletableFuture<ClassificationResults> startClassificationAsync(String projectKey, String taskKey, String branchPath, String username) throws RestClientException, JSONException, BusinessServiceException {
+		final CompletableFuture<ClassificationResults> completion = new CompletableFuture<>();
+		startClassification(projectKey, taskKey, branchPath, username, completion);
+		return completion;
+	}
+
+	private synchronized Classification startClassification(String projectKey, String taskKey, String branchPath, String username,
+			CompletableFuture<ClassificationResults> completion) throws RestClientException {
 		if (!snowOwlRestClientFactory.getClient().isClassificationInProgressOnBranch(branchPath)) {
-			return callClassification(projectKey, taskKey, branchPath, username);
+			return callClassification(projectKey, taskKey, branchPath, username, completion);
 		} else {
 			throw new IllegalStateException("Classification already in progress on this branch.");
 		}
@@ -45,7 +62,8 @@ public class ClassificationService {
 		return snowOwlRestClientFactory.getClient().getLatestClassificationOnBranch(branchPath);
 	}
 
-	private Classification callClassification(String projectKey, String taskKey, String branchPath, String callerUsername) throws RestClientException {
+	private Classification callClassification(String projectKey, String taskKey, String branchPath, String callerUsername,
+			CompletableFuture<ClassificationResults> completion) throws RestClientException {
 		logger.info("Requesting classification of path {} for user {}", branchPath, callerUsername);
 		ClassificationResults results = snowOwlRestClientFactory.getClient().startClassification(branchPath);
 		//If we started the classification without an exception then it's state will be RUNNING (or queued)
@@ -53,7 +71,7 @@ public class ClassificationService {
 
 		//Now start an asynchronous thread to wait for the results
 		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		(new Thread(new ClassificationPoller(branchPath, projectKey, taskKey, results, authentication))).start();
+		(new Thread(new ClassificationPoller(branchPath, projectKey, taskKey, results, authentication, completion))).start();
 
 		return new Classification(results);
 	}
@@ -66,23 +84,26 @@ public class ClassificationService {
 		private String projectKey;
 		private String taskKey;
 		private final Authentication authentication;
+		private final CompletableFuture<ClassificationResults> completion;
 
-		ClassificationPoller(String branchPath, String projectKey, String taskKey, ClassificationResults results, Authentication authentication) {
+		ClassificationPoller(String branchPath, String projectKey, String taskKey, ClassificationResults results, Authentication authentication,
+				CompletableFuture<ClassificationResults> completion) {
 			this.startDate = new Date();
 			this.branchPath = branchPath;
 			this.results = results;
 			this.projectKey = projectKey;
 			this.taskKey = taskKey;
 			this.authentication = authentication;
+			this.completion = completion;
 		}
 
 		@Override
 		public void run() {
 			SecurityContextHolder.getContext().setAuthentication(authentication);
 			String resultMessage = null;
-			SnowOwlRestClient terminologyServerClient = snowOwlRestClientFactory.getClient();
+			Exception failure = null;
 			try {
-
+				SnowOwlRestClient terminologyServerClient = snowOwlRestClientFactory.getClient();
 				try {
 					// Function sleeps here
 					// - Throws RestClientException if classification failed
@@ -102,19 +123,35 @@ public class ClassificationService {
 				}
 				resultMessage = "Classification completed successfully";
 
-			} catch (RestClientException | InterruptedException e) {
+			} catch (Exception e) {
+				if (e instanceof InterruptedException) {
+					Thread.currentThread().interrupt();
+				}
 				resultMessage = "Classification failed to complete due to an internal error. Please try again.";
 				logger.error(resultMessage, e);
+				failure = e;
 			}
 
-			if (taskKey != null) {
-				//In every case we'll report what we know to the jira ticket
-				taskService.addCommentLogErrors(projectKey, taskKey, resultMessage);
-			} else {
-				// Comment on project magic ticket
-				taskService.addCommentLogErrors(projectKey, resultMessage);
+			try {
+				if (taskKey != null) {
+					//In every case we'll report what we know to the jira ticket
+					taskService.addCommentLogErrors(projectKey, taskKey, resultMessage);
+				} else {
+					// Comment on project magic ticket
+					taskService.addCommentLogErrors(projectKey, resultMessage);
+				}
+				notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Classification, resultMessage));
+			} catch (RuntimeException e) {
+				logger.error("Failed to report classification result on {}", branchPath, e);
+			} finally {
+				//Whatever happened, anyone awaiting the classification must not be left waiting
+				if (failure == null) {
+					completion.complete(results);
+				} else {
+					completion.completeExceptionally(failure);
+				}
+				SecurityContextHolder.clearContext();
 			}
-			notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Classification, resultMessage));
 		}
 
 		private Date getTimeSecondsInPast(int seconds) {
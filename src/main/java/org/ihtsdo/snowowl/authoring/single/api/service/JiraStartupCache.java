@@ -0,0 +1,100 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import org.ihtsdo.snowowl.authoring.single.api.service.dao.ArbitraryFileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.NoSuchFileException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the Jira custom field ids and project details on local disk, so that after a restart the service
+ * can start serving straight away and check them against Jira in the background.
+ */
+class JiraStartupCache {
+
+	private static final String FIELD_IDS_FILE = "jira-cache/field-ids.properties";
+	private static final String PROJECT_DETAILS_FILE = "jira-cache/project-details.properties";
+	private static final String BASE_BRANCH_PATH = ".baseBranchPath";
+	private static final String PRODUCT_CODE = ".productCode";
+
+	private final ArbitraryFileService fileService = new ArbitraryFileService();
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * @return custom field ids keyed by field name, empty if none have been saved.
+	 */
+	Map<String, String> loadFieldIds() {
+		final Properties properties = load(FIELD_IDS_FILE);
+		final Map<String, String> fieldIds = new HashMap<>();
+		for (String fieldName : properties.stringPropertyNames()) {
+			fieldIds.put(fieldName, properties.getProperty(fieldName));
+		}
+		return fieldIds;
+	}
+
+	synchronized void saveFieldIds(Map<String, String> fieldIds) {
+		final Properties properties = new Properties();
+		properties.putAll(fieldIds);
+		save(FIELD_IDS_FILE, properties, "Jira custom field ids");
+	}
+
+	/**
+	 * @return project details keyed by project key, empty if none have been saved.
+	 */
+	Map<String, ProjectDetails> loadProjectDetails() {
+		final Properties properties = load(PROJECT_DETAILS_FILE);
+		final Map<String, ProjectDetails> projectDetails = new HashMap<>();
+		for (String name : properties.stringPropertyNames()) {
+			if (name.endsWith(BASE_BRANCH_PATH)) {
+				final String projectKey = name.substring(0, name.length() - BASE_BRANCH_PATH.length());
+				projectDetails.put(projectKey, new ProjectDetails(properties.getProperty(name),
+						properties.getProperty(projectKey + PRODUCT_CODE, "")));
+			}
+		}
+		return projectDetails;
+	}
+
+	/**
+	 * Saves a copy of the project details, taken once any other save has finished so that saves can't overtake each other.
+	 */
+	synchronized void saveProjectDetails(Map<String, ProjectDetails> projectDetails) {
+		final Properties properties = new Properties();
+		for (Map.Entry<String, ProjectDetails> entry : projectDetails.entrySet()) {
+			properties.setProperty(entry.getKey() + BASE_BRANCH_PATH, entry.getValue().getBaseBranchPath());
+			properties.setProperty(entry.getKey() + PRODUCT_CODE, entry.getValue().getProductCode());
+		}
+		save(PROJECT_DETAILS_FILE, properties, "Jira project details");
+	}
+
+	private Properties load(String path) {
+		final Properties properties = new Properties();
+		try {
+			properties.load(new StringReader(fileService.read(path)));
+		} catch (NoSuchFileException e) {
+			logger.info("No local copy of {} yet.", path);
+		} catch (IOException | IllegalArgumentException e) {
+			//Nothing lost, everything will be fetched from Jira instead
+			logger.warn("Ignoring unreadable local copy of {}.", path, e);
+		}
+		return properties;
+	}
+
+	private void save(String path, Properties properties, String comment) {
+		try {
+			final StringWriter writer = new StringWriter();
+			properties.store(writer, comment);
+			//A crash part way through a save must not leave a truncated copy for the next start
+			fileService.writeAtomically(path, writer.toString());
+		} catch (IOException e) {
+			logger.warn("Failed to save local copy of {}, the next start will be slower.", path, e);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Issues ETags for the project and task listings and decides whether a client's copy of a listing is still current.
+ * A listing's ETag is built from the version of each project or task in it. When an ETag is issued the generation of the
+ * projects it covers is recorded, so while nothing has been changed through this service and the ETag is recent enough
+ * a matching If-None-Match can be answered without asking Jira, Snow Owl or the review store again.
+ * Changes made directly in Jira are only noticed once the ETag is no longer trusted and the listing is rebuilt.
+ */
+public class ListingETagService {
+
+	private static final String ALL_PROJECTS = "";
+
+	@Value("${listings.etagTrustSeconds}")
+	private long etagTrustSeconds;
+
+	@Value("${listings.maxIssuedETags}")
+	private long maxIssuedETags;
+
+	//Bumped on any change within the project. The entry for all projects is bumped on every change.
+	private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+	private Cache<String, IssuedETag> issuedETags;
+
+	@PostConstruct
+	public void init() {
+		issuedETags = CacheBuilder.newBuilder()
+				.expireAfterWrite(etagTrustSeconds, TimeUnit.SECONDS)
+				.maximumSize(maxIssuedETags)
+				.build();
+	}
+
+	/**
+	 * Records that something shown in the project's listings may have changed.
+	 */
+	public void changed(String projectKey) {
+		getGenerationCounter(projectKey).incrementAndGet();
+		getGenerationCounter(ALL_PROJECTS).incrementAndGet();
+	}
+
+	/**
+	 * @param projectKey the project the listing is limited to, or null if it spans projects
+	 * @return the generation to pass to {@link #issue}, taken before the listing is built
+	 */
+	public long getGeneration(String projectKey) {
+		return getGenerationCounter(projectKey == null ? ALL_PROJECTS : projectKey).get();
+	}
+
+	/**
+	 * @param listingKey identifies the listing as seen by one user
+	 * @return the ETag last issued for the listing if nothing has changed since, otherwise null.
+	 */
+	public String getCurrentETag(String listingKey, String projectKey) {
+		final IssuedETag issued = issuedETags.getIfPresent(listingKey);
+		return issued != null && issued.generation == getGeneration(projectKey) ? issued.etag : null;
+	}
+
+	/**
+	 * Builds the ETag for a listing and remembers it for {@link #getCurrentETag}.
+	 */
+	public <T> String issue(String listingKey, long generationAtStart, List<T> items, Function<T, String> version) {
+		final StringBuilder versions = new StringBuilder();
+		for (T item : items) {
+			versions.append(version.apply(item)).append('\n');
+		}
+		final String etag = "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+		issuedETags.put(listingKey, new IssuedETag(etag, generationAtStart));
+		return etag;
+	}
+
+	/**
+	 * @return true if the If-None-Match header value matches the ETag.
+	 */
+	public static boolean matches(String ifNoneMatch, String etag) {
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals(etag) || candidate.equals("*")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private AtomicLong getGenerationCounter(String key) {
+		return generations.computeIfAbsent(key, k -> new AtomicLong());
+	}
+
+	private static final class IssuedETag {
+
+		private final String etag;
+		private final long generation;
+
+		private IssuedETag(String etag, long generation) {
+			this.etag = etag;
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.ihtsdo.otf.rest.client.RestClientException;
+import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClient;
+import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClientFactory;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.ApiError;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.Merge;
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.ProcessStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.ihtsdo.otf.rest.client.snowowl.pojo.Merge.Status.IN_PROGRESS;
+import static org.ihtsdo.otf.rest.client.snowowl.pojo.Merge.Status.SCHEDULED;
+
+/**
+ * Runs branch merges without holding a thread while Snow Owl works. All merges in flight are polled from one
+ * shared scheduler, each backing off from four seconds to ten between polls, for up to an hour.
+ * The latest status of each merge is kept for a while so clients can check on it.
+ * Follow-up actions of completed merges run on their own threads, so a slow one can't hold up the polling of other merges.
+ */
+public class MergeService {
+
+	public static final String FAILED = "FAILED";
+
+	private static final int POLLING_THREADS = 2;
+	private static final int COMPLETED_ACTION_THREADS = 4;
+	private static final int INITIAL_POLL_SECONDS = 4;
+	private static final int MAX_POLL_SECONDS = 10;
+	private static final int MAX_WAIT_SECONDS = 60 * 60;
+	private static final int STATUS_RETENTION_HOURS = 1;
+	private static final int MAX_STATUSES = 10000;
+
+	@Autowired
+	private SnowOwlRestClientFactory snowOwlRestClientFactory;
+
+	@Autowired
+	private BranchService branchService;
+
+	@Autowired
+	private ListingETagService listingETagService;
+
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(POLLING_THREADS);
+	private final ExecutorService completedActionExecutor = Executors.newFixedThreadPool(COMPLETED_ACTION_THREADS);
+
+	//Latest status of each merge by project key and merge id
+	private final Cache<String, ProcessStatus> statuses = CacheBuilder.newBuilder()
+			.expireAfterWrite(STATUS_RETENTION_HOURS, TimeUnit.HOURS)
+			.maximumSize(MAX_STATUSES)
+			.build();
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	public interface CompletedAction {
+		void run() throws BusinessServiceException;
+	}
+
+	public MergeJob mergeAsync(String projectKey, String sourcePath, String targetPath, String reviewId) throws BusinessServiceException {
+		return mergeAsync(projectKey, sourcePath, targetPath, reviewId, null);
+	}
+
+	/**
+	 * Starts the merge and returns straight away.
+	 * @param projectKey the project whose listings change once the merge ends
+	 * @param onCompleted run as the current user once the merge has completed successfully, before the result completes. May be null.
+	 * If it fails the merge is still reported as completed, with the failure given as the status message.
+	 * @return the merge, whose result completes with the final state of the merge, or with the last state seen if it was still running after an hour.
+	 */
+	public MergeJob mergeAsync(String projectKey, String sourcePath, String targetPath, String reviewId, CompletedAction onCompleted) throws BusinessServiceException {
+		logger.info("Attempting branch merge from '{}' to '{}'", sourcePath, targetPath);
+		final SnowOwlRestClient client = snowOwlRestClientFactory.getClient();
+		final String mergeId;
+		try {
+			mergeId = client.startMerge(sourcePath, targetPath, reviewId);
+		} catch (RestClientException e) {
+			throw new BusinessServiceException("Failed to start merge.", e);
+		}
+		final MergeJob job = new MergeJob(mergeId, projectKey, sourcePath, targetPath, client, SecurityContextHolder.getContext().getAuthentication(), onCompleted);
+		statuses.put(getStatusKey(projectKey, mergeId), new ProcessStatus(SCHEDULED.name(), ""));
+		poll(job, INITIAL_POLL_SECONDS, 0);
+		return job;
+	}
+
+	/**
+	 * @return the latest status of a merge started through this service for the project, or null if it is not known.
+	 */
+	public ProcessStatus getStatus(String projectKey, String mergeId) {
+		return statuses.getIfPresent(getStatusKey(projectKey, mergeId));
+	}
+
+	/**
+	 * Waits for the merge, for callers which can't carry on without it.
+	 */
+	public Merge await(MergeJob job) throws BusinessServiceException {
+		try {
+			return job.getResult().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessServiceException("Interrupted waiting for merge " + job.getMergeId(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof BusinessServiceException) {
+				throw (BusinessServiceException) e.getCause();
+			}
+			throw new BusinessServiceException("Failed to fetch merge status.", e.getCause());
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+		completedActionExecutor.shutdownNow();
+	}
+
+	private void poll(MergeJob job, int delaySeconds, int totalWaitSeconds) {
+		scheduler.schedule(() -> {
+			SecurityContextHolder.getContext().setAuthentication(job.authentication);
+			try {
+				checkMerge(job, delaySeconds, totalWaitSeconds + delaySeconds);
+			} catch (Exception e) {
+				logger.error("Branch merge from '{}' to '{}' failed", job.sourcePath, job.targetPath, e);
+				statuses.put(getStatusKey(job.projectKey, job.getMergeId()), new ProcessStatus(FAILED, e.getMessage()));
+				job.getResult().completeExceptionally(e);
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		}, delaySeconds, TimeUnit.SECONDS);
+	}
+
+	private void checkMerge(MergeJob job, int delaySeconds, int totalWaitSeconds) throws BusinessServiceException {
+		final Merge merge;
+		try {
+			merge = job.client.getMerge(job.getMergeId());
+		} catch (RestClientException e) {
+			throw new BusinessServiceException("Failed to fetch merge status.", e);
+		}
+		final String message = getMessage(merge);
+		statuses.put(getStatusKey(job.projectKey, job.getMergeId()), new ProcessStatus(merge.getStatus().name(), message));
+		if (merge.getStatus() == SCHEDULED || merge.getStatus() == IN_PROGRESS) {
+			if (totalWaitSeconds < MAX_WAIT_SECONDS) {
+				poll(job, Math.min(delaySeconds + 2, MAX_POLL_SECONDS), totalWaitSeconds);
+				return;
+			}
+			logger.warn("Stopped waiting for branch merge from '{}' to '{}' after {} seconds", job.sourcePath, job.targetPath, totalWaitSeconds);
+		}
+
+		logger.info("Branch merge from '{}' to '{}' end status is {} {}", job.sourcePath, job.targetPath, merge.getStatus(), message);
+		branchService.branchChanged(job.targetPath);
+		listingETagService.changed(job.projectKey);
+		if (merge.getStatus() == Merge.Status.COMPLETED && job.onCompleted != null) {
+			completedActionExecutor.execute(() -> runCompletedAction(job, merge));
+		} else {
+			job.getResult().complete(merge);
+		}
+	}
+
+	private void runCompletedAction(MergeJob job, Merge merge) {
+		SecurityContextHolder.getContext().setAuthentication(job.authentication);
+		try {
+			job.onCompleted.run();
+			job.getResult().complete(merge);
+		} catch (Exception e) {
+			//The merge itself is done and stays reported as completed to pollers, but anyone awaiting it sees the failure
+			logger.error("Follow-up of branch merge from '{}' to '{}' failed", job.sourcePath, job.targetPath, e);
+			statuses.put(getStatusKey(job.projectKey, job.getMergeId()),
+					new ProcessStatus(merge.getStatus().name(), "Merge completed but its follow-up failed: " + e.getMessage()));
+			job.getResult().completeExceptionally(e);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	private String getStatusKey(String projectKey, String mergeId) {
+		return projectKey + "|" + mergeId;
+	}
+
+	private String getMessage(Merge merge) {
+		ApiError apiError = merge.getApiError();
+		return apiError != null ? apiError.getMessage() : "";
+	}
+
+	public static final class MergeJob {
+
+		private final String mergeId;
+		private final String projectKey;
+		private final String sourcePath;
+		private final String targetPath;
+		private final SnowOwlRestClient client;
+		private final Authentication authentication;
+		private final CompletedAction onCompleted;
+		private final CompletableFuture<Merge> result = new CompletableFuture<>();
+
+		private MergeJob(String mergeId, String projectKey, String sourcePath, String targetPath, SnowOwlRestClient client,
+				Authentication authentication, CompletedAction onCompleted) {
+			this.mergeId = mergeId;
+			this.projectKey = projectKey;
+			this.sourcePath = sourcePath;
+			this.targetPath = targetPath;
+			this.client = client;
+			this.authentication = authentication;
+			this.onCompleted = onCompleted;
+		}
+
+		public String getMergeId() {
+			return mergeId;
+		}
+
+		public CompletableFuture<Merge> getResult() {
+			return result;
+		}
+	}
+
+}
@@ -2,21 +2,31 @@ package org.ihtsdo.snowowl.authoring.single.api.service;
 
 import com.google.common.base.Strings;
 import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.EntityType;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.Notification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class NotificationService {
 
+	//Events that can change what is shown in a project's summary
+	private static final Set<EntityType> PROJECT_SUMMARY_EVENTS = EnumSet.of(EntityType.Validation, EntityType.Classification,
+			EntityType.BranchState, EntityType.Rebase, EntityType.Promotion);
+
 	@Autowired
 	private TaskService taskService;
 
+	@Autowired
+	private ListingETagService listingETagService;
+
 	private final Map<String, List<Notification>> pendingNotifications;
 
 	private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -42,6 +52,10 @@ public class NotificationService {
 			} catch (BusinessServiceException e) {
 				logger.error("Failed to retrieve project base for {}", projectKey);
 			}
+			if (PROJECT_SUMMARY_EVENTS.contains(notification.getEntityType())) {
+				taskService.projectSummaryChanged(projectKey);
+			}
+			listingETagService.changed(projectKey);
 		}
 		logger.info("Notification for user {} - '{}'", username, notification);
 		synchronized (pendingNotifications) {
@@ -1,5 +1,7 @@
 package org.ihtsdo.snowowl.authoring.single.api.service;
 
+import java.util.Objects;
+
 public class ProjectDetails {
 
 	private final String baseBranchPath;
@@ -17,4 +19,17 @@ public class ProjectDetails {
 	public String getProductCode() {
 		return productCode;
 	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		ProjectDetails that = (ProjectDetails) o;
+		return Objects.equals(baseBranchPath, that.baseBranchPath) && Objects.equals(productCode, that.productCode);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(baseBranchPath, productCode);
+	}
 }
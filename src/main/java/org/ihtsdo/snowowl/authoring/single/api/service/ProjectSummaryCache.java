@@ -0,0 +1,164 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import net.rcarz.jiraclient.Issue;
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Materialized project summaries, so that listing projects doesn't have to look up the branch,
+ * latest classification and validation status of every project on every request.
+ * A summary is served as last built, even once stale, while a fresh one is built in the background.
+ * Summaries go stale when an event arrives for their project or when they pass their maximum age.
+ */
+class ProjectSummaryCache {
+
+	interface SummaryBuilder {
+		List<AuthoringProject> build(List<Issue> projectTickets) throws BusinessServiceException;
+	}
+
+	private final SummaryBuilder builder;
+	private final long maxAgeMillis;
+	private final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+	//Bumped on each invalidation, so that a build started before the event isn't taken as fresh
+	private final Map<String, Long> generations = new ConcurrentHashMap<>();
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+	private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	ProjectSummaryCache(SummaryBuilder builder, long maxAgeMillis) {
+		this.builder = builder;
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	/**
+	 * @return a summary for each project ticket that could be summarised.  Only projects never
+	 * summarised before are built before returning, stale summaries are refreshed in the background.
+	 */
+	List<AuthoringProject> getProjects(List<Issue> projectTickets) throws BusinessServiceException {
+		final List<AuthoringProject> projects = new ArrayList<>();
+		final List<Issue> missing = new ArrayList<>();
+		final List<Issue> stale = new ArrayList<>();
+		final long now = System.currentTimeMillis();
+		for (Issue projectTicket : projectTickets) {
+			Summary summary = summaries.get(projectTicket.getProject().getKey());
+			if (summary == null) {
+				missing.add(projectTicket);
+			} else {
+				projects.add(summary.project);
+				if (summary.isStale(now)) {
+					stale.add(projectTicket);
+				}
+			}
+		}
+		if (!missing.isEmpty()) {
+			//Nothing to serve for these yet, so the caller has to wait
+			projects.addAll(build(missing));
+		}
+		if (!stale.isEmpty()) {
+			refreshInBackground(stale);
+		}
+		return projects;
+	}
+
+	/**
+	 * Records a summary built outside of the cache, for example when a single project is retrieved.
+	 */
+	void put(AuthoringProject project) {
+		put(project, getGeneration(project.getKey()));
+	}
+
+	/**
+	 * Marks the project's summary as stale.  It will still be served until it has been rebuilt.
+	 */
+	void invalidate(String projectKey) {
+		generations.merge(projectKey, 1L, Long::sum);
+		Summary summary = summaries.get(projectKey);
+		if (summary != null) {
+			summary.stale = true;
+		}
+	}
+
+	void shutdown() {
+		refreshExecutor.shutdown();
+	}
+
+	private List<AuthoringProject> build(List<Issue> projectTickets) throws BusinessServiceException {
+		final Map<String, Long> generationsAtStart = new ConcurrentHashMap<>();
+		for (Issue projectTicket : projectTickets) {
+			String projectKey = projectTicket.getProject().getKey();
+			generationsAtStart.put(projectKey, getGeneration(projectKey));
+		}
+		final List<AuthoringProject> projects = builder.build(projectTickets);
+		for (AuthoringProject project : projects) {
+			put(project, generationsAtStart.get(project.getKey()));
+		}
+		return projects;
+	}
+
+	private void refreshInBackground(List<Issue> staleTickets) {
+		final List<Issue> toRefresh = new ArrayList<>();
+		for (Issue projectTicket : staleTickets) {
+			if (refreshing.add(projectTicket.getProject().getKey())) {
+				toRefresh.add(projectTicket);
+			}
+		}
+		if (toRefresh.isEmpty()) {
+			return;
+		}
+		//Summaries don't vary by user, but Snow Owl and Jira need to be asked as someone
+		final SecurityContext securityContext = SecurityContextHolder.getContext();
+		refreshExecutor.submit(() -> {
+			SecurityContextHolder.setContext(securityContext);
+			try {
+				build(toRefresh);
+			} catch (Exception e) {
+				logger.warn("Failed to refresh project summaries, the last summaries built will continue to be served.", e);
+			} finally {
+				for (Issue projectTicket : toRefresh) {
+					refreshing.remove(projectTicket.getProject().getKey());
+				}
+				SecurityContextHolder.clearContext();
+			}
+		});
+	}
+
+	private void put(AuthoringProject project, Long generationAtStart) {
+		Summary summary = new Summary(project, System.currentTimeMillis());
+		//An event arriving mid-build may not be reflected in what was built
+		summary.stale = !getGeneration(project.getKey()).equals(generationAtStart);
+		summaries.put(project.getKey(), summary);
+	}
+
+	private Long getGeneration(String projectKey) {
+		return generations.getOrDefault(projectKey, 0L);
+	}
+
+	private class Summary {
+
+		private final AuthoringProject project;
+		private final long built;
+		private volatile boolean stale;
+
+		Summary(AuthoringProject project, long built) {
+			this.project = project;
+			this.built = built;
+		}
+
+		boolean isStale(long now) {
+			return stale || now - built > maxAgeMillis;
+		}
+	}
+}
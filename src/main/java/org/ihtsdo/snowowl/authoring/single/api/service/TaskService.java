@@ -2,6 +2,7 @@ package org.ihtsdo.snowowl.authoring.single.api.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -12,46 +13,39 @@ import net.rcarz.jiraclient.User;
 import net.sf.json.JSON;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
-import us.monoid.json.JSONException;
 
 import org.apache.activemq.command.ActiveMQQueue;
 import org.apache.log4j.Level;
 import org.ihtsdo.otf.jms.MessagingHelper;
 import org.ihtsdo.otf.rest.client.RestClientException;
 import org.ihtsdo.otf.rest.client.snowowl.PathHelper;
-import org.ihtsdo.otf.rest.client.snowowl.pojo.ApiError;
 import org.ihtsdo.otf.rest.client.snowowl.pojo.Branch;
-import org.ihtsdo.otf.rest.client.snowowl.pojo.ClassificationResults;
-import org.ihtsdo.otf.rest.client.snowowl.pojo.Merge;
-import org.ihtsdo.otf.rest.client.snowowl.pojo.MergeReviewsResults;
 import org.ihtsdo.otf.rest.exception.BadRequestException;
 import org.ihtsdo.otf.rest.exception.BusinessServiceException;
 import org.ihtsdo.otf.rest.exception.ResourceNotFoundException;
 import org.ihtsdo.snowowl.authoring.single.api.pojo.*;
-import org.ihtsdo.snowowl.authoring.single.api.rest.ControllerHelper;
-import org.ihtsdo.snowowl.authoring.single.api.review.pojo.BranchState;
 import org.ihtsdo.snowowl.authoring.single.api.review.service.ReviewService;
 import org.ihtsdo.snowowl.authoring.single.api.review.service.TaskMessagesDetail;
 import org.ihtsdo.snowowl.authoring.single.api.service.jira.ImpersonatingJiraClientFactory;
+import org.ihtsdo.snowowl.authoring.single.api.service.jira.JiraFieldProfiles;
+import org.ihtsdo.snowowl.authoring.single.api.service.jira.JiraFieldProfiles.Profile;
 import org.ihtsdo.snowowl.authoring.single.api.service.jira.JiraHelper;
 import org.ihtsdo.snowowl.authoring.single.api.service.util.TimerUtil;
-import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClient;
-import org.ihtsdo.otf.rest.client.snowowl.SnowOwlRestClientFactory;
 import org.ihtsdo.sso.integration.SecurityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import static org.ihtsdo.otf.rest.client.snowowl.pojo.MergeReviewsResults.MergeReviewStatus.CURRENT;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.jms.JMSException;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -59,19 +53,22 @@ public class TaskService {
 
 	public static final String FAILED_TO_RETRIEVE = "Failed-to-retrieve";
 	
-	private static final String INCLUDE_ALL_FIELDS = "*all";
 	private static final String EXCLUDE_STATUSES = " AND (status != \"" + TaskStatus.COMPLETED.getLabel()
 			+ "\" AND status != \"" + TaskStatus.DELETED.getLabel() + "\") ";
 	private static final String AUTHORING_TASK_TYPE = "SCA Authoring Task";
 	private static final int LIMIT_UNLIMITED = -1;
 	private static final String TASK_STATE_CHANGE_QUEUE_NAME = "-authoring.task-state-change";
+	private static final int TRANSITION_ATTEMPTS = 3;
+	private static final int TRANSITION_RETRY_MILLIS = 2000;
+	private static final int TRANSITION_CACHE_HOURS = 1;
+	private static final int CHANGELOG_CACHE_HOURS = 1;
+	private static final int CHANGELOG_CACHE_SIZE = 10000;
+	private static final int ATTACHMENT_CACHE_HOURS = 1;
+	private static final int ATTACHMENT_CACHE_SIZE = 1000;
+	private static final String REQUEST_ATTACHMENT_NAME = "request.json";
+	//Keeps "key in (...)" searches well inside the length Jira accepts
+	private static final int KEYS_PER_SEARCH = 100;
 
-	@Autowired
-	private NotificationService notificationService;
-	
-	@Autowired
-	private SnowOwlRestClientFactory snowOwlRestClientFactory;
-	
 	@Autowired
 	private BranchService branchService;
 
@@ -84,6 +81,18 @@ public class TaskService {
 	@Autowired
 	private ValidationService validationService;
 
+	@Autowired
+	private AutoPromoteService autoPromoteService;
+
+	@Autowired
+	private ListingETagService listingETagService;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private BranchProvisioningService branchProvisioningService;
+
 	@Autowired
 	private UiStateService uiService;
 
@@ -96,58 +105,138 @@ public class TaskService {
 	@Value("${orchestration.name}")
 	private String orchestrationName;
 
-	private final ImpersonatingJiraClientFactory jiraClientFactory;
-	private final String jiraExtensionBaseField;
-	private final String jiraProductCodeField;
-	private final String jiraProjectPromotionField;
-	private final String jiraProjectRebaseField;
-	private final String jiraProjectMrcmField;
-	private final String jiraCrsIdField;
-	private final String jiraProjectTemplatesField;
-	private final String jiraProjectSpellCheckField;
-	private final Set<String> projectJiraFetchFields;
-	private final Map<String, ProcessStatus> autoPromoteStatus;
-	private ProcessStatus processStatus;
+	@Value("${projects.summaryMaxAgeSeconds}")
+	private long projectSummaryMaxAgeSeconds;
 
+	@Value("${jira.searchParallelism}")
+	private int jiraSearchParallelism;
+
+	@Value("${jira.transitionParallelism}")
+	private int jiraTransitionParallelism;
+
+	private final ImpersonatingJiraClientFactory jiraClientFactory;
+	//Custom field ids may be replaced once checked against Jira in the background
+	private volatile String jiraExtensionBaseField;
+	private volatile String jiraProductCodeField;
+	private volatile String jiraProjectPromotionField;
+	private volatile String jiraProjectRebaseField;
+	private volatile String jiraProjectMrcmField;
+	private volatile String jiraCrsIdField;
+	private volatile String jiraProjectTemplatesField;
+	private volatile String jiraProjectSpellCheckField;
+	private volatile Set<String> projectJiraFetchFields;
+	private volatile JiraFieldProfiles jiraFieldProfiles;
+
+	private final JiraStartupCache jiraStartupCache;
 	private LoadingCache<String, ProjectDetails> projectDetailsCache;
+	//Projects whose details were loaded from the local copy and have not yet been checked against Jira
+	private final Set<String> unverifiedProjects = ConcurrentHashMap.newKeySet();
+	private ProjectSummaryCache projectSummaryCache;
 	private final ExecutorService executorService;
+	//Bounds the lookups made against Snow Owl when listing tasks
+	private final ExecutorService taskEnrichmentExecutor;
+	private static final int TASK_ENRICHMENT_WORKERS = 8;
+	//Fetches the pages of a Jira search after the first
+	private ExecutorService jiraSearchExecutor;
+	//Runs bulk task transitions
+	private ExecutorService jiraTransitionExecutor;
+	//Transitions of each workflow, keyed by project, issue type, from status and to status
+	private final Cache<String, Transition> transitionCache = CacheBuilder.newBuilder()
+			.expireAfterWrite(TRANSITION_CACHE_HOURS, TimeUnit.HOURS)
+			.build();
+	//Keys of transitions refused after being taken from the cache, most likely as the workflow only offers them under conditions
+	private final Set<String> conditionalTransitions = ConcurrentHashMap.newKeySet();
+	//Change log of each issue, used while the issue's updated timestamp is unchanged
+	private final Cache<String, ChangeLogIndex> changeLogCache = CacheBuilder.newBuilder()
+			.expireAfterWrite(CHANGELOG_CACHE_HOURS, TimeUnit.HOURS)
+			.maximumSize(CHANGELOG_CACHE_SIZE)
+			.build();
+	//Attachments of each task's linked request tickets, used while none of those tickets has been updated
+	private final Cache<String, CachedAttachments> attachmentCache = CacheBuilder.newBuilder()
+			.expireAfterWrite(ATTACHMENT_CACHE_HOURS, TimeUnit.HOURS)
+			.maximumSize(ATTACHMENT_CACHE_SIZE)
+			.build();
 	private static final String UNIT_TEST = "UNIT_TEST";
 
+	private static final String REVIEWER_FIELD = "Reviewer";
+	private static final String EXTENSION_BASE_FIELD = "Extension Base";
+	private static final String PRODUCT_CODE_FIELD = "Product Code";
+	private static final String PROJECT_PROMOTION_FIELD = "SCA Project Promotion";
+	private static final String PROJECT_REBASE_FIELD = "SCA Project Rebase";
+	private static final String PROJECT_MRCM_FIELD = "SCA Project MRCM";
+	private static final String CRS_ID_FIELD = "CRS-ID";
+	private static final String PROJECT_TEMPLATES_FIELD = "SCA Project Templates";
+	private static final String PROJECT_SPELL_CHECK_FIELD = "SCA Project Spell Check";
+	private static final List<String> CUSTOM_FIELD_NAMES = Arrays.asList(REVIEWER_FIELD, EXTENSION_BASE_FIELD, PRODUCT_CODE_FIELD,
+			PROJECT_PROMOTION_FIELD, PROJECT_REBASE_FIELD, PROJECT_MRCM_FIELD, CRS_ID_FIELD, PROJECT_TEMPLATES_FIELD, PROJECT_SPELL_CHECK_FIELD);
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 
 	public TaskService(ImpersonatingJiraClientFactory jiraClientFactory, String jiraUsername) throws JiraException {
-		autoPromoteStatus = new HashMap<>();
-		processStatus = new ProcessStatus();
 		this.jiraClientFactory = jiraClientFactory;
 		executorService = Executors.newCachedThreadPool();
+		taskEnrichmentExecutor = Executors.newFixedThreadPool(TASK_ENRICHMENT_WORKERS);
 		
+		jiraStartupCache = new JiraStartupCache();
+
 		if (!jiraUsername.equals(UNIT_TEST)){
-			logger.info("Fetching Jira custom field names.");
-			final JiraClient jiraClientForFieldLookup = jiraClientFactory.getImpersonatingInstance(jiraUsername);
-			AuthoringTask.setJiraReviewerField(JiraHelper.fieldIdLookup("Reviewer", jiraClientForFieldLookup, null));
-			projectJiraFetchFields = new HashSet<>();
-			projectJiraFetchFields.add("project");
-			jiraExtensionBaseField = JiraHelper.fieldIdLookup("Extension Base", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraProductCodeField = JiraHelper.fieldIdLookup("Product Code", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraProjectPromotionField = JiraHelper.fieldIdLookup("SCA Project Promotion", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraProjectRebaseField = JiraHelper.fieldIdLookup("SCA Project Rebase", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraProjectMrcmField = JiraHelper.fieldIdLookup("SCA Project MRCM", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraCrsIdField = JiraHelper.fieldIdLookup("CRS-ID", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraProjectTemplatesField = JiraHelper.fieldIdLookup("SCA Project Templates", jiraClientForFieldLookup, projectJiraFetchFields);
-			jiraProjectSpellCheckField = JiraHelper.fieldIdLookup("SCA Project Spell Check", jiraClientForFieldLookup, projectJiraFetchFields);
-			logger.info("Jira custom field names fetched. (e.g. {}).", jiraExtensionBaseField);
-		
+			final Map<String, String> savedFieldIds = jiraStartupCache.loadFieldIds();
+			if (savedFieldIds.keySet().containsAll(CUSTOM_FIELD_NAMES)) {
+				logger.info("Jira custom field names loaded from local copy, checking against Jira in the background.");
+				setCustomFieldIds(savedFieldIds);
+				executorService.submit(() -> revalidateCustomFieldIds(jiraUsername, savedFieldIds));
+			} else {
+				logger.info("Fetching Jira custom field names.");
+				final Map<String, String> fieldIds = JiraHelper.fieldIdLookup(CUSTOM_FIELD_NAMES, jiraClientFactory.getImpersonatingInstance(jiraUsername));
+				setCustomFieldIds(fieldIds);
+				jiraStartupCache.saveFieldIds(fieldIds);
+				logger.info("Jira custom field names fetched. (e.g. {}).", jiraExtensionBaseField);
+			}
+
 			init();
 		} else {
-			projectJiraFetchFields = null;
-			jiraExtensionBaseField = null;
-			jiraProductCodeField = null;
-			jiraProjectPromotionField = null;
-			jiraProjectRebaseField = null;
-			jiraProjectMrcmField = null;
-			jiraCrsIdField = null;
-			jiraProjectTemplatesField = null;
-			jiraProjectSpellCheckField = null;
+			jiraFieldProfiles = new JiraFieldProfiles();
+		}
+	}
+
+	private void setCustomFieldIds(Map<String, String> fieldIds) {
+		AuthoringTask.setJiraReviewerField(fieldIds.get(REVIEWER_FIELD));
+		final Set<String> projectFields = new HashSet<>();
+		projectFields.add("project");
+		jiraExtensionBaseField = getProjectFieldId(fieldIds, EXTENSION_BASE_FIELD, projectFields);
+		jiraProductCodeField = getProjectFieldId(fieldIds, PRODUCT_CODE_FIELD, projectFields);
+		jiraProjectPromotionField = getProjectFieldId(fieldIds, PROJECT_PROMOTION_FIELD, projectFields);
+		jiraProjectRebaseField = getProjectFieldId(fieldIds, PROJECT_REBASE_FIELD, projectFields);
+		jiraProjectMrcmField = getProjectFieldId(fieldIds, PROJECT_MRCM_FIELD, projectFields);
+		jiraCrsIdField = getProjectFieldId(fieldIds, CRS_ID_FIELD, projectFields);
+		jiraProjectTemplatesField = getProjectFieldId(fieldIds, PROJECT_TEMPLATES_FIELD, projectFields);
+		jiraProjectSpellCheckField = getProjectFieldId(fieldIds, PROJECT_SPELL_CHECK_FIELD, projectFields);
+		projectJiraFetchFields = projectFields;
+		jiraFieldProfiles = new JiraFieldProfiles(projectFields, Arrays.asList(jiraExtensionBaseField, jiraProductCodeField,
+				jiraProjectPromotionField, jiraProjectRebaseField, jiraProjectMrcmField, jiraProjectTemplatesField, jiraProjectSpellCheckField),
+				AuthoringTask.jiraReviewerField, jiraCrsIdField);
+	}
+
+	private String getProjectFieldId(Map<String, String> fieldIds, String fieldName, Set<String> projectFields) {
+		final String fieldId = fieldIds.get(fieldName);
+		if (fieldId != null) {
+			projectFields.add(fieldId);
+		}
+		return fieldId;
+	}
+
+	private void revalidateCustomFieldIds(String jiraUsername, Map<String, String> savedFieldIds) {
+		try {
+			final Map<String, String> fieldIds = JiraHelper.fieldIdLookup(CUSTOM_FIELD_NAMES, jiraClientFactory.getImpersonatingInstance(jiraUsername));
+			if (!fieldIds.equals(savedFieldIds)) {
+				logger.warn("Jira custom field ids have changed since they were saved, now using {}.", fieldIds);
+				setCustomFieldIds(fieldIds);
+				jiraStartupCache.saveFieldIds(fieldIds);
+			} else {
+				logger.info("Saved Jira custom field names match Jira.");
+			}
+		} catch (JiraException e) {
+			logger.error("Failed to check saved Jira custom field names against Jira, will check again on next start.", e);
 		}
 	}
 
@@ -171,13 +260,17 @@ public class TaskService {
 						return keyToBaseMap;
 					}
 				});
+		final Map<String, ProjectDetails> savedProjectDetails = jiraStartupCache.loadProjectDetails();
+		projectDetailsCache.putAll(savedProjectDetails);
+		unverifiedProjects.addAll(savedProjectDetails.keySet());
+		logger.info("{} project details loaded from local copy.", savedProjectDetails.size());
 	}
 
 	public List<AuthoringProject> listProjects() throws JiraException, BusinessServiceException {
 		final TimerUtil timer = new TimerUtil("ProjectsList");
 		List<Issue> projectTickets = new ArrayList<>();
 		// Search for authoring project tickets this user has visibility of
-		List<Issue> issues = searchIssues("type = \"SCA Authoring Project\"", -1, projectJiraFetchFields);
+		List<Issue> issues = searchIssues("type = \"SCA Authoring Project\"", -1, Profile.PROJECT_LIST);
 
 		timer.checkpoint("First jira search");
 		for (Issue projectMagicTicket : issues) {
@@ -187,8 +280,8 @@ public class TaskService {
 			}
 		}
 		timer.checkpoint("Jira searches");
-		final List<AuthoringProject> authoringProjects = buildAuthoringProjects(projectTickets);
-		timer.checkpoint("validation and classification");
+		final List<AuthoringProject> authoringProjects = projectSummaryCache.getProjects(projectTickets);
+		timer.checkpoint("project summaries");
 		timer.finish();
 		return authoringProjects;
 	}
@@ -199,16 +292,28 @@ public class TaskService {
 		if (projects.size() == 0) {
 			throw new BusinessServiceException ("Failed to recover project: " + projectKey +". See earlier logs for reason");
 		}
+		projectSummaryCache.put(projects.get(0));
 		return projects.get(0);
 	}
 
+	/**
+	 * Marks the project's cached summary as stale following a change to its branch, classification or validation.
+	 */
+	public void projectSummaryChanged(String projectKey) {
+		projectSummaryCache.invalidate(projectKey);
+	}
+
 	public String getProjectBranchPathUsingCache(String projectKey) throws BusinessServiceException {
 		return PathHelper.getProjectPath(getProjectBaseUsingCache(projectKey), projectKey);
 	}
 
 	public String getProjectBaseUsingCache(String projectKey) throws BusinessServiceException {
 		try {
-			return projectDetailsCache.get(projectKey).getBaseBranchPath();
+			final ProjectDetails projectDetails = projectDetailsCache.get(projectKey);
+			if (unverifiedProjects.remove(projectKey)) {
+				verifyProjectDetails(projectKey);
+			}
+			return projectDetails.getBaseBranchPath();
 		} catch (ExecutionException e) {
 			throw new BusinessServiceException("Failed to retrieve project path.", e);
 		}
@@ -220,9 +325,22 @@ public class TaskService {
 		}
 		final List<AuthoringProject> authoringProjects = new ArrayList<>();
 		final Set<String> branchPaths = new HashSet<>();
-		final Map<String, Branch> branchMap = new ConcurrentHashMap<>();
 		SecurityContext securityContext = SecurityContextHolder.getContext();
 
+		// Fetch the project branches under each base path in one go
+		final BranchLookup branchLookup = branchService.newLookup();
+		final Set<String> basePaths = new HashSet<>();
+		for (Issue projectTicket : projectTickets) {
+			basePaths.add(getProjectDetailsPopulatingCache(projectTicket).getBaseBranchPath());
+		}
+		for (String basePath : basePaths) {
+			try {
+				branchLookup.prefetchChildren(basePath);
+			} catch (ServiceException e) {
+				logger.warn("Failed to fetch project branches under {}, they will be fetched one at a time", basePath, e);
+			}
+		}
+
 		JiraClient jiraClient = getJiraClient();
 		Future<Map<String, JiraProject>> unfilteredProjects = executorService.submit(() -> getProjects(jiraClient.getRestClient()).stream().collect(Collectors.toMap(JiraProject::getKey, Function.identity())));
 
@@ -241,16 +359,12 @@ public class TaskService {
 				final boolean templatesDisabled = "Disabled".equals(JiraHelper.toStringOrNull(projectTicket.getField(jiraProjectTemplatesField)));
 				final boolean spellCheckDisabled = "Disabled".equals(JiraHelper.toStringOrNull(projectTicket.getField(jiraProjectSpellCheckField)));
 
-				final Branch branchOrNull = branchService.getBranchOrNull(branchPath);
+				final Branch branchOrNull = branchLookup.getBranchOrNull(branchPath);
 				String parentPath = PathHelper.getParentPath(branchPath);
-				Branch parentBranchOrNull = branchMap.get(parentPath);
+				Branch parentBranchOrNull = branchLookup.getBranchOrNull(parentPath);
 				if (parentBranchOrNull == null) {
-					parentBranchOrNull = branchService.getBranchOrNull(parentPath);
-					if (parentBranchOrNull == null) {
-						logger.error("Project {} expected parent branch does not exist: {}", projectKey, parentPath);
-						return;
-					}
-					branchMap.put(parentPath, parentBranchOrNull);
+					logger.error("Project {} expected parent branch does not exist: {}", projectKey, parentPath);
+					return;
 				}
 
 				String branchState = null;
@@ -270,6 +384,9 @@ public class TaskService {
 				final AuthoringProject authoringProject = new AuthoringProject(projectKey, project.getName(),
 						project.getLead(), branchPath, branchState, latestClassificationJson, promotionDisabled, mrcmDisabled, templatesDisabled, spellCheckDisabled, rebaseDisabled);
 				authoringProject.setMetadata(metadata);
+				if (branchOrNull != null) {
+					authoringProject.setBranchHeadTimestamp(String.valueOf(branchOrNull.getHeadTimestamp()));
+				}
 				synchronized (authoringProjects) {
 					authoringProjects.add(authoringProject);
 				}
@@ -300,10 +417,35 @@ public class TaskService {
 				.nullToEmpty(JiraHelper.toStringOrNull(projectMagicTicket.getField(jiraProductCodeField)));
 		// Update cache with recently fetched project base value
 		final ProjectDetails details = new ProjectDetails(base, productCode);
-		projectDetailsCache.put(projectMagicTicket.getProject().getKey(), details);
+		final String projectKey = projectMagicTicket.getProject().getKey();
+		unverifiedProjects.remove(projectKey);
+		final ProjectDetails previous = projectDetailsCache.asMap().put(projectKey, details);
+		if (!details.equals(previous)) {
+			executorService.submit(() -> jiraStartupCache.saveProjectDetails(projectDetailsCache.asMap()));
+		}
 		return details;
 	}
 
+	/**
+	 * Refreshes project details loaded from the local copy, as the current user, without holding up the request that needed them.
+	 */
+	private void verifyProjectDetails(String projectKey) {
+		final SecurityContext securityContext = SecurityContextHolder.getContext();
+		executorService.submit(() -> {
+			SecurityContextHolder.setContext(securityContext);
+			try {
+				final Issue projectTicket = getProjectTicket(projectKey);
+				if (projectTicket != null) {
+					getProjectDetailsPopulatingCache(projectTicket);
+				}
+			} catch (BusinessServiceException e) {
+				logger.warn("Failed to check saved details of project {} against Jira.", projectKey, e);
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		});
+	}
+
 	public AuthoringMain retrieveMain() throws BusinessServiceException {
 		return buildAuthoringMain();
 	}
@@ -352,7 +494,7 @@ public class TaskService {
 		magicTicketQuery.append(") AND type = \"SCA Authoring Project\"");
 
 		try {
-			final List<Issue> issues = getJiraClient().searchIssues(magicTicketQuery.toString()).issues;
+			final List<Issue> issues = searchIssues(magicTicketQuery.toString(), LIMIT_UNLIMITED, Profile.PROJECT_LIST);
 			Map<String, Issue> issueMap = new HashMap<>();
 			for (Issue issue : issues) {
 				issueMap.put(issue.getProject().getKey(), issue);
@@ -375,7 +517,7 @@ public class TaskService {
 		getProjectOrThrow(projectKey);
 		List<Issue> issues;
 		try {
-			issues = searchIssues(getProjectTaskJQL(projectKey, null), LIMIT_UNLIMITED);
+			issues = searchIssues(getProjectTaskJQL(projectKey, null), LIMIT_UNLIMITED, Profile.TASK_LIST);
 		} catch (JiraException e) {
 			throw new BusinessServiceException("Failed to list tasks.", e);
 		}
@@ -400,168 +542,7 @@ public class TaskService {
 	}
 	
 	public void autoPromoteTaskToProject(String projectKey, String taskKey) throws BusinessServiceException {
-		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		executorService.submit(() -> {
-			processStatus.setStatus("Queued");
-			processStatus.setMessage("");
-			SecurityContextHolder.getContext().setAuthentication(authentication);
-			autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-			doAutoPromoteTaskToProject(projectKey, taskKey, authentication);
-		});
-	}
-	
-	public synchronized void doAutoPromoteTaskToProject(String projectKey, String taskKey, Authentication authentication){
-		try {
-
-			// Call rebase process
-			Merge merge = new Merge();
-			String mergeId = this.autoRebaseTask(projectKey, taskKey);
-
-			if (null != mergeId && mergeId.equals("stopped")) {
-				return;
-			}
-			
-			// Call classification process
-			Classification classification =  this.autoClassificationTask(projectKey, taskKey);
-			if(null != classification && (classification.getResults().getRelationshipChangesCount() == 0)) {
-
-				// Call promote process
-				merge = this.autoPromoteTask(projectKey, taskKey, mergeId);
-				if (merge.getStatus() == Merge.Status.COMPLETED) {
-					notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.BranchState, "Success to auto promote task"));
-					processStatus.setStatus("Completed");
-					autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-					stateTransition(projectKey, taskKey, TaskStatus.PROMOTED);
-				} else {
-					processStatus.setStatus("Failed");
-					autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-					processStatus.setMessage(merge.getApiError().getMessage());
-				}
-			}
-		} catch (BusinessServiceException e) {
-			processStatus.setStatus("Failed");
-			processStatus.setMessage(e.getMessage());
-			autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-		}
-	}
-	
-	private Merge autoPromoteTask(String projectKey, String taskKey, String mergeId) throws BusinessServiceException {
-		notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Classification, "Running promote authoring task"));
-		processStatus.setStatus("Promoting");
-		processStatus.setMessage("");
-		autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-		String taskBranchPath = getTaskBranchPathUsingCache(projectKey, taskKey);
-		Merge merge = branchService.mergeBranchSync(taskBranchPath, PathHelper.getParentPath(taskBranchPath), mergeId);
-		return merge;
-	}
-	
-	private org.ihtsdo.snowowl.authoring.single.api.pojo.Status autoValidateTask(String projectKey, String taskKey) throws BusinessServiceException {
-		status = validationService.startValidation(projectKey, taskKey, ControllerHelper.getUsername());
-		if(status == null && !status.equals("COMPLETED")) {
-			return null;
-		}
-		return status;
-	}
-	
-	private Classification autoClassificationTask(String projectKey, String taskKey) throws BusinessServiceException {
-		notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Classification, "Running classification authoring task"));
-		processStatus.setStatus("Classifying");
-		processStatus.setMessage("");
-		autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-		String branchPath = getTaskBranchPathUsingCache(projectKey, taskKey);
-		try {
-			Classification classification =  classificationService.startClassification(projectKey, taskKey, branchPath, ControllerHelper.getUsername());
-			
-			snowOwlRestClientFactory.getClient().waitForClassificationToComplete(classification.getResults());
-
-			if (classification.getResults().getStatus().equals(ClassificationResults.ClassificationStatus.COMPLETED.toString())) {
-				if (null != classification && null != classification.getResults() && classification.getResults().getRelationshipChangesCount() != 0) {
-					processStatus.setStatus("Classified with results");
-					processStatus.setMessage("");
-					autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-				}
-			} else {
-				throw new BusinessServiceException(classification.getMessage());
-			}
-			return classification;
-		} catch (RestClientException | JSONException | InterruptedException e) {
-			notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Classification, "Failed to start classification."));
-			throw new BusinessServiceException("Failed to classify", e);
-		}
-	}
-	
-	private String autoRebaseTask(String projectKey, String taskKey) throws BusinessServiceException {
-		
-		notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Rebase, "Running auto rebase authoring task"));
-		processStatus.setStatus("Rebasing");
-		processStatus.setMessage("");
-		autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-		String taskBranchPath = getTaskBranchPathUsingCache(projectKey, taskKey);
-		
-		// Get current task and check branch state
-		AuthoringTask authoringTask = retrieveTask(projectKey, taskKey);
-		String branchState = authoringTask.getBranchState();
-		if (null != authoringTask) {
-			
-			// Will skip rebase process if the branch state is FORWARD or UP_TO_DATE
-			if ((branchState.equalsIgnoreCase(BranchState.FORWARD.toString()) || branchState.equalsIgnoreCase(BranchState.UP_TO_DATE.toString())) ) {
-				return null;
-			} else {
-				try {
-					SnowOwlRestClient client = snowOwlRestClientFactory.getClient();
-					String mergeId = client.createBranchMergeReviews(PathHelper.getParentPath(taskBranchPath), taskBranchPath);
-					MergeReviewsResults mergeReview;
-					int sleepSeconds = 4;
-					int totalWait = 0;
-					int maxTotalWait = 60 * 60;
-					try {
-						do {
-							Thread.sleep(1000 * sleepSeconds);
-							totalWait += sleepSeconds;
-							mergeReview = client.getMergeReviewsResult(mergeId);
-							if (sleepSeconds < 10) {
-								sleepSeconds+=2;
-							}
-						} while (totalWait < maxTotalWait && (mergeReview.getStatus() != CURRENT));
-
-						// Check conflict of merge review
-						if (client.isNoMergeConflict(mergeId)) {
-							
-							// Process rebase task 
-							Merge merge = branchService.mergeBranchSync(PathHelper.getParentPath(taskBranchPath), taskBranchPath, null);
-							if (merge.getStatus() == Merge.Status.COMPLETED) {
-								return mergeId;
-							} else {
-								ApiError apiError = merge.getApiError();
-								String message = apiError != null ? apiError.getMessage() : null;
-								notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Rebase, message));
-								processStatus.setStatus("Rebased with conflicts");
-								processStatus.setMessage(message);
-								autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-								return "stopped";
-							}
-						} else {
-							notificationService.queueNotification(ControllerHelper.getUsername(), new Notification(projectKey, taskKey, EntityType.Rebase, "Rebase has conflicts"));
-							processStatus.setStatus("Rebased with conflicts");
-							autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-							return "stopped";
-						}
-					} catch (InterruptedException | RestClientException e) {
-						processStatus.setStatus("Rebased with conflicts");
-						processStatus.setMessage(e.getMessage());
-						autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-						throw new BusinessServiceException("Failed to fetch merge reviews status.", e);
-					}
-				} catch (RestClientException e) {
-					processStatus.setStatus("Rebased with conflicts");
-					processStatus.setMessage(e.getMessage());
-					autoPromoteStatus.put(getAutoPromoteStatusKey(projectKey, taskKey), processStatus);
-					throw new BusinessServiceException("Failed to start merge reviews.", e);
-				}
-			
-			}
-		}
-		return null;
+		autoPromoteService.autoPromote(projectKey, taskKey);
 	}
 
 	public String getBranchPathUsingCache(String projectKey, String taskKey) throws BusinessServiceException {
@@ -576,17 +557,11 @@ public class TaskService {
 	}
 
 	private Issue getIssue(String projectKey, String taskKey) throws JiraException {
-		return getIssue(projectKey, taskKey, false);
+		return getIssue(taskKey, Profile.TASK_DETAIL);
 	}
 
-	private Issue getIssue(String projectKey, String taskKey, boolean includeAll) throws JiraException {
-		// If we don't need all fields, then the existing implementation is
-		// sufficient
-		if (includeAll) {
-			return getJiraClient().getIssue(taskKey, INCLUDE_ALL_FIELDS, "changelog");
-		} else {
-			return getJiraClient().getIssue(taskKey, INCLUDE_ALL_FIELDS);
-		}
+	private Issue getIssue(String taskKey, Profile profile) throws JiraException {
+		return getJiraClient().getIssue(taskKey, jiraFieldProfiles.getFields(profile));
 	}
 
 	/**
@@ -594,26 +569,63 @@ public class TaskService {
 	 * @param limit
 	 *            maximum number of issues to return. If -1 the results are
 	 *            unlimited.
-	 * @return
+	 * @param profile
+	 *            fields to fetch for each issue
+	 * @return issues in the order Jira returned them, pages after the
+	 *         first being fetched concurrently
 	 * @throws JiraException
 	 */
-	private List<Issue> searchIssues(String jql, int limit) throws JiraException {
-		return searchIssues(jql, limit, null);
-	}
-	private List<Issue> searchIssues(String jql, int limit, Set<String> requiredFields) throws JiraException {
-		List<Issue> issues = new ArrayList<>();
-		Issue.SearchResult searchResult;
-		String requiredFieldParam = null;
-		if (requiredFields != null && !requiredFields.isEmpty()) {
-			requiredFieldParam = String.join(",", requiredFields);
+	private List<Issue> searchIssues(String jql, int limit, Profile profile) throws JiraException {
+		return searchIssues(jql, limit, profile, null);
+	}
+
+	/**
+	 * @param expand
+	 *            extra information to include with each issue, null for none
+	 */
+	private List<Issue> searchIssues(String jql, int limit, Profile profile, String expand) throws JiraException {
+		final JiraClient jiraClient = getJiraClient();
+		final String requiredFieldParam = jiraFieldProfiles.getFields(profile);
+		final Issue.SearchResult firstPage = searchPage(jiraClient, jql, requiredFieldParam, expand, limit, 0);
+		final List<Issue> issues = new ArrayList<>(firstPage.issues);
+		final int wanted = limit == LIMIT_UNLIMITED ? firstPage.total : Math.min(limit, firstPage.total);
+		final int pageSize = firstPage.max > 0 ? firstPage.max : firstPage.issues.size();
+		if (issues.size() >= wanted || pageSize == 0) {
+			return issues;
 		}
-		do {
-			searchResult = getJiraClient().searchIssues(jql, requiredFieldParam, limit - issues.size(), issues.size());
-			issues.addAll(searchResult.issues);
-		} while (searchResult.total > issues.size() && (limit == LIMIT_UNLIMITED || issues.size() < limit));
 
+		// Now we know how many there are, fetch the remaining pages side by side
+		final List<Future<Issue.SearchResult>> pages = new ArrayList<>();
+		for (int startAt = issues.size(); startAt < wanted; startAt += pageSize) {
+			final int pageStart = startAt;
+			final int pageMax = Math.min(pageSize, wanted - startAt);
+			pages.add(jiraSearchExecutor.submit(() -> searchPage(jiraClient, jql, requiredFieldParam, expand, pageMax, pageStart)));
+		}
+		try {
+			for (Future<Issue.SearchResult> page : pages) {
+				issues.addAll(page.get().issues);
+			}
+		} catch (ExecutionException e) {
+			pages.forEach(page -> page.cancel(true));
+			if (e.getCause() instanceof JiraException) {
+				throw (JiraException) e.getCause();
+			}
+			throw new JiraException("Failed to fetch page of Jira search results.", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pages.forEach(page -> page.cancel(true));
+			throw new JiraException("Interrupted while fetching Jira search results.", e);
+		}
 		return issues;
+	}
 
+	private Issue.SearchResult searchPage(JiraClient jiraClient, String jql, String requiredFieldParam, String expand,
+			int maxResults, int startAt) throws JiraException {
+		final long start = System.currentTimeMillis();
+		final Issue.SearchResult page = jiraClient.searchIssues(jql, requiredFieldParam, expand, maxResults, startAt);
+		logger.debug("Jira search page starting at {} returned {} of {} issues in {}ms", startAt, page.issues.size(), page.total,
+				System.currentTimeMillis() - start);
+		return page;
 	}
 
 	public List<AuthoringTask> listMyTasks(String username, String excludePromoted) throws JiraException, BusinessServiceException {
@@ -621,14 +633,14 @@ public class TaskService {
 		if (null != excludePromoted && excludePromoted.equalsIgnoreCase("TRUE")) {
 			jql += " AND status != \"Promoted\"";
 		}
-		List<Issue> issues = searchIssues(jql, LIMIT_UNLIMITED);
+		List<Issue> issues = searchIssues(jql, LIMIT_UNLIMITED, Profile.MY_TASKS);
 		return buildAuthoringTasks(issues);
 	}
 
 	public List<AuthoringTask> listMyOrUnassignedReviewTasks() throws JiraException, BusinessServiceException {
 		List<Issue> issues = searchIssues("type = \"" + AUTHORING_TASK_TYPE + "\" " + "AND assignee != currentUser() "
 				+ "AND (Reviewer = currentUser() OR (Reviewer = null AND status = \"" + TaskStatus.IN_REVIEW.getLabel()
-				+ "\")) " + EXCLUDE_STATUSES, LIMIT_UNLIMITED);
+				+ "\")) " + EXCLUDE_STATUSES, LIMIT_UNLIMITED, Profile.MY_TASKS);
 		return buildAuthoringTasks(issues);
 	}
 
@@ -651,15 +663,13 @@ public class TaskService {
 		} catch (JiraException e) {
 			throw new BusinessServiceException("Failed to create Jira task", e);
 		}
+		listingETagService.changed(projectKey);
 
 		AuthoringTask authoringTask = new AuthoringTask(jiraIssue, getProjectBaseUsingCache(projectKey));
-		try {
-			branchService.createProjectBranchIfNeeded(PathHelper.getParentPath(authoringTask.getBranchPath()));
-		} catch (ServiceException e) {
-			throw new BusinessServiceException("Failed to create project branch.", e);
-		}
-		// Task branch creation is delayed until the user starts work to prevent
-		// having to rebase straight away.
+		// The project and task branches are created in the background so the
+		// task branch is ready by the time the user starts work.
+		authoringTask.setBranchProvisioningStatus(
+				branchProvisioningService.provision(projectKey, authoringTask.getKey(), authoringTask.getBranchPath()));
 		return authoringTask;
 	}
 
@@ -691,25 +701,35 @@ public class TaskService {
 					// We only need to recover classification and validation
 					// statuses for task that are not new ie mature
 					if (task.getStatus() != TaskStatus.NEW) {
-						String latestClassificationJson = classificationService
-								.getLatestClassification(task.getBranchPath());
-						timer.checkpoint("Recovering classification");
-						task.setLatestClassificationJson(latestClassificationJson);
-						task.setBranchState(branchService.getBranchStateOrNull(task.getBranchPath()));
-						timer.checkpoint("Recovering branch state");
 						startedTasks.put(task.getBranchPath(), task);
 					}
+				}
+			}
 
-					// get the review message details and append to task
-					TaskMessagesDetail detail = reviewService.getTaskMessagesDetail(task.getProjectKey(), task.getKey(),
-							username);
-					task.setFeedbackMessagesStatus(detail.getTaskMessagesStatus());
-					task.setFeedbackMessageDate(detail.getLastMessageDate());
-					task.setViewDate(detail.getViewDate());
-					timer.checkpoint("Recovering feedback messages");
-
+			recoverBranchDetails(startedTasks.values());
+			for (AuthoringTask task : allTasks) {
+				String provisioningStatus = branchProvisioningService.getStatus(task.getBranchPath());
+				if (provisioningStatus == null && task.getBranchState() != null) {
+					provisioningStatus = BranchProvisioningService.READY;
 				}
+				task.setBranchProvisioningStatus(provisioningStatus);
 			}
+			timer.checkpoint("Recovering classifications and branch states");
+
+			// get the review message details and append to tasks
+			final Map<String, String> taskProjectKeys = new HashMap<>();
+			for (AuthoringTask task : allTasks) {
+				taskProjectKeys.put(task.getKey(), task.getProjectKey());
+			}
+			final Map<String, TaskMessagesDetail> messagesDetails = reviewService.getTaskMessagesDetails(taskProjectKeys, username);
+			for (AuthoringTask task : allTasks) {
+				TaskMessagesDetail detail = messagesDetails.get(task.getKey());
+				task.setFeedbackMessagesStatus(detail.getTaskMessagesStatus());
+				task.setFeedbackMessageDate(detail.getLastMessageDate());
+				task.setViewDate(detail.getViewDate());
+				task.setFeedbackMessageCount(detail.getMessageCount());
+			}
+			timer.checkpoint("Recovering feedback messages");
 
 			final ImmutableMap<String, String> validationStatuses = validationService
 					.getValidationStatuses(startedTasks.keySet());
@@ -724,12 +744,82 @@ public class TaskService {
 				}
 			}
 			timer.finish();
-		} catch (ExecutionException | RestClientException | ServiceException e) {
+		} catch (ExecutionException e) {
 			throw new BusinessServiceException("Failed to retrieve task list.", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessServiceException("Interrupted while retrieving task list.", e);
 		}
 		return allTasks;
 	}
 
+	/**
+	 * Looks up the latest classification and branch state of each task, a bounded number of tasks at a time.
+	 * Where several tasks share a project their branches are fetched together, the projects side by side.
+	 */
+	private void recoverBranchDetails(Collection<AuthoringTask> tasks) throws ExecutionException, InterruptedException {
+		final SecurityContext securityContext = SecurityContextHolder.getContext();
+
+		// Fetching every child of a project only pays off when more than one of them is wanted
+		final BranchLookup branchLookup = branchService.newLookup();
+		final Map<String, Integer> tasksPerProjectPath = new HashMap<>();
+		for (AuthoringTask task : tasks) {
+			tasksPerProjectPath.merge(PathHelper.getParentPath(task.getBranchPath()), 1, Integer::sum);
+		}
+		final List<Future<?>> prefetches = new ArrayList<>();
+		for (Map.Entry<String, Integer> projectPath : tasksPerProjectPath.entrySet()) {
+			if (projectPath.getValue() > 1) {
+				prefetches.add(taskEnrichmentExecutor.submit(() -> {
+					SecurityContextHolder.setContext(securityContext);
+					try {
+						branchLookup.prefetchChildren(projectPath.getKey());
+					} catch (ServiceException e) {
+						logger.warn("Failed to fetch task branches under {}, they will be fetched one at a time", projectPath.getKey(), e);
+					} finally {
+						SecurityContextHolder.clearContext();
+					}
+				}));
+			}
+		}
+		try {
+			for (Future<?> prefetch : prefetches) {
+				prefetch.get();
+			}
+		} finally {
+			for (Future<?> prefetch : prefetches) {
+				prefetch.cancel(true);
+			}
+		}
+
+		final List<Future<?>> lookups = new ArrayList<>();
+		for (AuthoringTask task : tasks) {
+			lookups.add(taskEnrichmentExecutor.submit(() -> {
+				SecurityContextHolder.setContext(securityContext);
+				try {
+					task.setLatestClassificationJson(classificationService.getLatestClassification(task.getBranchPath()));
+					final Branch branch = branchLookup.getBranchOrNull(task.getBranchPath());
+					if (branch != null) {
+						task.setBranchState(branch.getState());
+						task.setBranchHeadTimestamp(String.valueOf(branch.getHeadTimestamp()));
+					}
+				} finally {
+					SecurityContextHolder.clearContext();
+				}
+				return null;
+			}));
+		}
+		try {
+			for (Future<?> lookup : lookups) {
+				lookup.get();
+			}
+		} finally {
+			//Don't leave lookups running for a list that has failed
+			for (Future<?> lookup : lookups) {
+				lookup.cancel(true);
+			}
+		}
+	}
+
 	private void getProjectOrThrow(String projectKey) {
 		try {
 			getJiraClient().getProject(projectKey);
@@ -850,6 +940,8 @@ public class TaskService {
 			}
 		} catch (JiraException e) {
 			throw new BusinessServiceException("Failed to update task.", e);
+		} finally {
+			listingETagService.changed(projectKey);
 		}
 
 		// Pick up those changes in a new Task object
@@ -874,35 +966,30 @@ public class TaskService {
 
 	/**
 	 * Returns the most recent Date/time of when the specified field changed to
-	 * the specified value
+	 * the specified value. The task's change log is cached and only fetched
+	 * again once the task has been updated.
 	 *
 	 * @throws BusinessServiceException
 	 */
 	public Date getDateOfChange(String projectKey, String taskKey, String fieldName, String newValue)
 			throws JiraException, BusinessServiceException {
+		ChangeLogIndex index = changeLogCache.getIfPresent(taskKey);
+		// Check the cached change log is still current, which doesn't need the change log itself
+		if (index == null || !index.isCurrent((String) getIssue(taskKey, Profile.TASK_CHANGELOG).getField(AuthoringTask.JIRA_UPDATED_FIELD))) {
+			final Issue issue = getJiraClient().getIssue(taskKey, jiraFieldProfiles.getFields(Profile.TASK_CHANGELOG), "changelog");
+			index = new ChangeLogIndex((String) issue.getField(AuthoringTask.JIRA_UPDATED_FIELD), issue.getChangeLog());
+			changeLogCache.put(taskKey, index);
+		}
+		return index.getDateOfChange(fieldName, newValue);
+	}
 
-		try {
-			// Recover the change log for the issue and work through it to find
-			// the change specified
-			ChangeLog changeLog = getIssue(projectKey, taskKey, true).getChangeLog();
-			if (changeLog != null) {
-				// Sort changeLog entries descending to get most recent change
-				// first
-				Collections.sort(changeLog.getEntries(), CHANGELOG_ID_COMPARATOR_DESC);
-				for (ChangeLogEntry entry : changeLog.getEntries()) {
-					Date thisChangeDate = entry.getCreated();
-					for (ChangeLogItem changeItem : entry.getItems()) {
-						if (changeItem.getField().equals(fieldName) && changeItem.getToString().equals(newValue)) {
-							return thisChangeDate;
-						}
-					}
-				}
-			}
-		} catch (JiraException je) {
-			throw new BusinessServiceException(
-					"Failed to recover change log from task " + toString(projectKey, taskKey), je);
+	private List<Issue> searchIssuesByKey(List<String> taskKeys, Profile profile, String expand) throws JiraException {
+		final List<Issue> issues = new ArrayList<>();
+		for (int i = 0; i < taskKeys.size(); i += KEYS_PER_SEARCH) {
+			final List<String> batch = taskKeys.subList(i, Math.min(i + KEYS_PER_SEARCH, taskKeys.size()));
+			issues.addAll(searchIssues("key in (" + String.join(",", batch) + ")", LIMIT_UNLIMITED, profile, expand));
 		}
-		return null;
+		return issues;
 	}
 
 	public static Comparator<ChangeLogEntry> CHANGELOG_ID_COMPARATOR_DESC = new Comparator<ChangeLogEntry>() {
@@ -913,8 +1000,6 @@ public class TaskService {
 		}
 	};
 
-	private org.ihtsdo.snowowl.authoring.single.api.pojo.Status status;
-
 	public boolean conditionalStateTransition(String projectKey, String taskKey, TaskStatus requiredState,
 			TaskStatus newState) throws JiraException, BusinessServiceException {
 		final Issue issue = getIssue(projectKey, taskKey);
@@ -934,22 +1019,88 @@ public class TaskService {
 		}
 	}
 
-	public void stateTransition(List<Issue> issues, TaskStatus newState) {
+	/**
+	 * Transitions the project's tasks in the background, a few at a time, returning straight away.
+	 * The outcome for each task, and a summary once all are done, are sent to the current user as notifications.
+	 */
+	public CompletableFuture<Void> stateTransitionAsync(String projectKey, List<Issue> issues, TaskStatus newState) {
+		final String username = SecurityUtil.getUsername();
+		final String newStateLabel = newState.getLabel();
+		final AtomicInteger failures = new AtomicInteger();
+		final List<CompletableFuture<Void>> transitions = new ArrayList<>();
 		for (Issue issue : issues) {
+			transitions.add(CompletableFuture.runAsync(() -> {
+				final String taskKey = issue.getKey();
+				try {
+					stateTransitionWithRetry(issue, newState);
+					notificationService.queueNotification(username, new Notification(projectKey, taskKey, EntityType.Promotion, newStateLabel));
+				} catch (JiraException | BusinessServiceException e) {
+					failures.incrementAndGet();
+					logger.error("Failed to transition issue {} to {}", taskKey, newStateLabel, e);
+					notificationService.queueNotification(username, new Notification(projectKey, taskKey, EntityType.Promotion,
+							"Failed to change status to " + newStateLabel + ": " + e.getMessage()));
+				}
+			}, jiraTransitionExecutor));
+		}
+		return CompletableFuture.allOf(transitions.toArray(new CompletableFuture[transitions.size()])).thenRun(() -> {
+			final int failed = failures.get();
+			logger.info("Transitioned {} of {} tasks in project {} to {}", issues.size() - failed, issues.size(), projectKey, newStateLabel);
+			notificationService.queueNotification(username, new Notification(projectKey, EntityType.Promotion,
+					(issues.size() - failed) + " of " + issues.size() + " tasks changed status to " + newStateLabel));
+		});
+	}
+
+	private void stateTransitionWithRetry(Issue issue, TaskStatus newState) throws JiraException, BusinessServiceException {
+		for (int attempt = 1; ; attempt++) {
 			try {
 				stateTransition(issue, newState);
-			} catch (JiraException | BusinessServiceException e) {
-				logger.error("Failed to transition issue {} to {}", issue.getKey(), newState.getLabel());
+				return;
+			} catch (JiraException e) {
+				if (attempt == TRANSITION_ATTEMPTS) {
+					throw e;
+				}
+				logger.warn("Failed to transition issue {} to {}, attempt {} of {}", issue.getKey(), newState.getLabel(), attempt, TRANSITION_ATTEMPTS, e);
+				try {
+					Thread.sleep(TRANSITION_RETRY_MILLIS * attempt);
+					// The failed attempt may have got as far as Jira
+					issue.refresh();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+				if (TaskStatus.fromLabel(issue.getStatus().getName()) == newState) {
+					return;
+				}
 			}
 		}
 	}
 
 	private void stateTransition(Issue issue, TaskStatus newState) throws JiraException, BusinessServiceException {
-		final Transition transition = getTransitionToOrThrow(issue, newState);
+		final String cacheKey = getTransitionCacheKey(issue, newState);
+		final Transition cached = cacheKey != null ? transitionCache.getIfPresent(cacheKey) : null;
 		final String key = issue.getKey();
 		final String newStateLabel = newState.getLabel();
 		logger.info("Transition issue {} to {}", key, newStateLabel);
-		issue.transition().execute(transition);
+		try {
+			issue.transition().execute(cached != null ? cached : getTransitionToOrThrow(issue, newState, cacheKey));
+		} catch (JiraException e) {
+			if (cacheKey != null) {
+				transitionCache.invalidate(cacheKey);
+			}
+			if (cached == null) {
+				throw e;
+			}
+			final List<Transition> offered = issue.getTransitions();
+			if (offered.stream().anyMatch(transition -> cached.getId().equals(transition.getId()))) {
+				//This issue is offered the cached transition too, so it failed for some other reason
+				throw e;
+			}
+			//Another issue was offered this transition but this one isn't, so use the transitions this issue is offered
+			logger.info("Cached transition of issue {} to {} refused, no longer caching it", key, newStateLabel);
+			conditionalTransitions.add(cacheKey);
+			issue.transition().execute(getTransitionToOrThrow(issue, offered, newState, cacheKey));
+		}
+		listingETagService.changed(issue.getProject().getKey());
 		issue.refresh();
 
 		// Send JMS Task State Notification
@@ -968,10 +1119,18 @@ public class TaskService {
 		}
 	}
 
-	private Transition getTransitionToOrThrow(Issue issue, TaskStatus newState)
+	private Transition getTransitionToOrThrow(Issue issue, TaskStatus newState, String cacheKey)
 			throws JiraException, BusinessServiceException {
-		for (Transition transition : issue.getTransitions()) {
+		return getTransitionToOrThrow(issue, issue.getTransitions(), newState, cacheKey);
+	}
+
+	private Transition getTransitionToOrThrow(Issue issue, List<Transition> transitions, TaskStatus newState, String cacheKey)
+			throws BusinessServiceException {
+		for (Transition transition : transitions) {
 			if (transition.getToStatus().getName().equals(newState.getLabel())) {
+				if (cacheKey != null && !conditionalTransitions.contains(cacheKey)) {
+					transitionCache.put(cacheKey, transition);
+				}
 				return transition;
 			}
 		}
@@ -979,70 +1138,128 @@ public class TaskService {
 				+ issue.getStatus().getName() + "' to '" + newState.name() + "', no such transition is available.");
 	}
 
-	public List<TaskAttachment> getTaskAttachments(String projectKey, String taskKey) throws BusinessServiceException {
-
-		List<TaskAttachment> attachments = new ArrayList<>();
-		final RestClient restClient = getJiraClient().getRestClient();
+	/**
+	 * @return the key of the workflow transition the issue would take, null if the issue type was not fetched.
+	 */
+	private String getTransitionCacheKey(Issue issue, TaskStatus newState) {
+		if (issue.getIssueType() == null || issue.getStatus() == null) {
+			return null;
+		}
+		return issue.getProject().getKey() + "|" + issue.getIssueType().getId() + "|" + issue.getStatus().getId() + "|" + newState.getLabel();
+	}
 
+	/**
+	 * Returns the request attachments of the task's linked request tickets. The
+	 * linked tickets are fetched in one search and the attachment contents
+	 * side by side. The result is reused until one of the linked tickets is
+	 * updated.
+	 */
+	public List<TaskAttachment> getTaskAttachments(String projectKey, String taskKey) throws BusinessServiceException {
 		try {
-			Issue issue = getIssue(projectKey, taskKey);
-		
-			for (IssueLink issueLink : issue.getIssueLinks()) {
+			final Issue issue = getIssue(projectKey, taskKey);
 
-				Issue linkedIssue = issueLink.getOutwardIssue();
+			final List<String> linkedKeys = new ArrayList<>();
+			for (IssueLink issueLink : issue.getIssueLinks()) {
+				if (issueLink.getOutwardIssue() != null) {
+					linkedKeys.add(issueLink.getOutwardIssue().getKey());
+				}
+			}
 
-				// need to forcibly retrieve the issue in order to get
-				// attachments
-				Issue issue1 = this.getIssue(null, linkedIssue.getKey(), true);
+			// need to forcibly retrieve the linked issues in order to get
+			// attachments
+			final Map<String, Issue> linkedIssues = new LinkedHashMap<>();
+			for (Issue linkedIssue : searchIssuesByKey(linkedKeys, Profile.TASK_REQUEST, null)) {
+				linkedIssues.put(linkedIssue.getKey(), linkedIssue);
+			}
+			final Map<String, String> linkedUpdated = new HashMap<>();
+			for (Issue linkedIssue : linkedIssues.values()) {
+				linkedUpdated.put(linkedIssue.getKey(), (String) linkedIssue.getField(AuthoringTask.JIRA_UPDATED_FIELD));
+			}
 
-				String crsId = issue1.getField(jiraCrsIdField).toString();
-				if (crsId == null) {
-					crsId = "Unknown";
-				}
+			final CachedAttachments cached = attachmentCache.getIfPresent(taskKey);
+			if (cached != null && cached.linkedUpdated.equals(linkedUpdated)) {
+				return new ArrayList<>(cached.attachments);
+			}
 
-				boolean attachmentFound = false;
+			final List<TaskAttachment> attachments = fetchTaskAttachments(issue.getKey(), linkedKeys, linkedIssues);
+			attachmentCache.put(taskKey, new CachedAttachments(linkedUpdated, attachments));
+			return new ArrayList<>(attachments);
+		} catch (JiraException e) {
+			if (e.getCause() instanceof RestException && ((RestException) e.getCause()).getHttpStatusCode() == 404) {
+				throw new ResourceNotFoundException("Task not found " + toString(projectKey, taskKey), e);
+			}
+			throw new BusinessServiceException("Failed to retrieve task " + toString(projectKey, taskKey), e);
+		}
+	}
 
-				for (Attachment attachment : issue1.getAttachments()) {
+	private List<TaskAttachment> fetchTaskAttachments(String taskKey, List<String> linkedKeys, Map<String, Issue> linkedIssues)
+			throws BusinessServiceException {
+		final RestClient restClient = getJiraClient().getRestClient();
 
-					if (attachment.getFileName().equals("request.json")) {
+		// One list per link, in link order
+		final List<Future<List<TaskAttachment>>> linkAttachments = new ArrayList<>();
+		for (String linkedKey : linkedKeys) {
+			final Issue linkedIssue = linkedIssues.get(linkedKey);
+			if (linkedIssue == null) {
+				throw new BusinessServiceException("Failed to retrieve linked issue " + linkedKey + " of task " + taskKey);
+			}
+			linkAttachments.add(executorService.submit(() -> fetchRequestAttachments(restClient, taskKey, linkedIssue)));
+		}
 
-						// attachments must be retrieved by relative path --
-						// absolute path will redirect to login
-						try {
-							final String contentUrl = attachment.getContentUrl();
-							final JSON attachmentJson = restClient
-									.get(contentUrl.substring(contentUrl.indexOf("secure")));
+		final List<TaskAttachment> attachments = new ArrayList<>();
+		try {
+			for (Future<List<TaskAttachment>> future : linkAttachments) {
+				attachments.addAll(future.get());
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			linkAttachments.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof BusinessServiceException) {
+				throw (BusinessServiceException) e.getCause();
+			}
+			throw new BusinessServiceException("Failed to retrieve attachments of task " + taskKey, e);
+		}
+		return attachments;
+	}
 
-							TaskAttachment taskAttachment = new TaskAttachment(issue1.getKey(), crsId, attachmentJson.toString());
+	private List<TaskAttachment> fetchRequestAttachments(RestClient restClient, String taskKey, Issue linkedIssue) throws BusinessServiceException {
+		final Object crsIdValue = linkedIssue.getField(jiraCrsIdField);
+		final String crsId = crsIdValue != null ? crsIdValue.toString() : "Unknown";
 
-							attachments.add(taskAttachment);
-							
-							attachmentFound = true;
+		final List<TaskAttachment> attachments = new ArrayList<>();
+		for (Attachment attachment : linkedIssue.getAttachments()) {
+			if (attachment.getFileName().equals(REQUEST_ATTACHMENT_NAME)) {
 
-						} catch (Exception e) {
-							throw new BusinessServiceException(
-									"Failed to retrieve attachment " + attachment.getContentUrl() + ": " + e.getMessage(), e);
-						}
-					}
+				// attachments must be retrieved by relative path --
+				// absolute path will redirect to login
+				try {
+					final String contentUrl = attachment.getContentUrl();
+					final JSON attachmentJson = restClient.get(contentUrl.substring(contentUrl.indexOf("secure")));
+					attachments.add(new TaskAttachment(linkedIssue.getKey(), crsId, attachmentJson.toString()));
+				} catch (Exception e) {
+					throw new BusinessServiceException(
+							"Failed to retrieve attachment " + attachment.getContentUrl() + ": " + e.getMessage(), e);
 				}
-				
-				// if no attachments, create a blank one to link CRS ticket id
- 				if (!attachmentFound) {
- 					TaskAttachment taskAttachment = new TaskAttachment(issue.getKey(), crsId, null);
- 					attachments.add(taskAttachment);
- 				}	
-				
 			}
-		} catch (JiraException e) {
-			if (e.getCause() instanceof RestException && ((RestException) e.getCause()).getHttpStatusCode() == 404) {
-				throw new ResourceNotFoundException("Task not found " + toString(projectKey, taskKey), e);
-			}
-			throw new BusinessServiceException("Failed to retrieve task " + toString(projectKey, taskKey), e);
 		}
 
+		// if no attachments, create a blank one to link CRS ticket id
+		if (attachments.isEmpty()) {
+			attachments.add(new TaskAttachment(taskKey, crsId, null));
+		}
 		return attachments;
 	}
 
+	private static final class CachedAttachments {
+
+		private final Map<String, String> linkedUpdated;
+		private final List<TaskAttachment> attachments;
+
+		private CachedAttachments(Map<String, String> linkedUpdated, List<TaskAttachment> attachments) {
+			this.linkedUpdated = linkedUpdated;
+			this.attachments = attachments;
+		}
+	}
+
 	public void leaveCommentForTask(String projectKey, String taskKey, String comment) throws BusinessServiceException {
 		try {
 			addComment(projectKey, taskKey, comment);
@@ -1078,17 +1295,24 @@ public class TaskService {
 		}
 	}
 
+	@PostConstruct
+	public void postConstruct() {
+		projectSummaryCache = new ProjectSummaryCache(this::buildAuthoringProjects, TimeUnit.SECONDS.toMillis(projectSummaryMaxAgeSeconds));
+		jiraSearchExecutor = Executors.newFixedThreadPool(jiraSearchParallelism);
+		jiraTransitionExecutor = Executors.newFixedThreadPool(jiraTransitionParallelism);
+	}
+
 	@PreDestroy
 	public void shutdown() {
 		executorService.shutdown();
+		taskEnrichmentExecutor.shutdown();
+		jiraSearchExecutor.shutdown();
+		jiraTransitionExecutor.shutdown();
+		projectSummaryCache.shutdown();
 	}
 	
 	public ProcessStatus getAutoPromoteStatus(String projectKey, String taskKey) {
-		return autoPromoteStatus.get(getAutoPromoteStatusKey(projectKey, taskKey));
-	}
-
-	private String getAutoPromoteStatusKey(String projectKey, String taskKey) {
-		return projectKey + "|" + taskKey;
+		return autoPromoteService.getStatus(projectKey, taskKey);
 	}
 
 }
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public class ArbitraryFileService {
 
@@ -24,6 +25,16 @@ public class ArbitraryFileService {
 		Files.write(getFile(path), data.getBytes(UTF_8));
 	}
 
+	/**
+	 * Writes to a temporary file alongside and then moves it into place, so readers only ever see a complete file.
+	 */
+	public void writeAtomically(String path, String data) throws IOException {
+		final Path file = getFile(path);
+		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(tempFile, data.getBytes(UTF_8));
+		Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
 	public String read(String path) throws IOException {
 		return new String(Files.readAllBytes(getFile(path)), UTF_8);
 	}
@@ -0,0 +1,85 @@
+package org.ihtsdo.snowowl.authoring.single.api.service.jira;
+
+import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields requested from Jira by each kind of call, so that responses only carry what we go on to use.
+ * Custom fields are requested by the ids resolved at startup. If a profile needs a custom field which could not
+ * be resolved it requests all fields instead, rather than quietly losing that value.
+ */
+public class JiraFieldProfiles {
+
+	public enum Profile {
+		PROJECT_LIST, TASK_LIST, TASK_DETAIL, MY_TASKS, TASK_CHANGELOG, TASK_REQUEST
+	}
+
+	public static final String ALL_FIELDS = "*all";
+
+	//Everything read by AuthoringTask(Issue, String), less the reviewer custom field, plus the issue type which selects the workflow
+	private static final List<String> TASK_FIELDS = Arrays.asList("project", "summary", "status", "description", "assignee", "labels",
+			"issuetype", AuthoringTask.JIRA_CREATED_FIELD, AuthoringTask.JIRA_UPDATED_FIELD);
+
+	private final Map<Profile, String> profiles = new EnumMap<>(Profile.class);
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * Profiles which request all fields, for when custom field ids have not been looked up.
+	 */
+	public JiraFieldProfiles() {
+		for (Profile profile : Profile.values()) {
+			profiles.put(profile, ALL_FIELDS);
+		}
+	}
+
+	/**
+	 * @param projectFetchFields fields read from project tickets
+	 * @param projectCustomFields ids of the custom fields read from project tickets, null where the lookup failed
+	 * @param reviewerField id of the task reviewer custom field
+	 * @param crsIdField id of the CRS-ID custom field of linked request tickets
+	 */
+	public JiraFieldProfiles(Set<String> projectFetchFields, Collection<String> projectCustomFields, String reviewerField, String crsIdField) {
+		put(Profile.PROJECT_LIST, projectFetchFields, projectCustomFields);
+		final Set<String> taskFields = new LinkedHashSet<>(TASK_FIELDS);
+		put(Profile.TASK_LIST, taskFields, Arrays.asList(reviewerField));
+		put(Profile.MY_TASKS, taskFields, Arrays.asList(reviewerField));
+		final Set<String> taskDetailFields = new LinkedHashSet<>(taskFields);
+		taskDetailFields.add("issuelinks");
+		put(Profile.TASK_DETAIL, taskDetailFields, Arrays.asList(reviewerField));
+		//The change log comes back with any fields, so ask only for what tells us whether it has changed
+		put(Profile.TASK_CHANGELOG, new LinkedHashSet<>(Arrays.asList(AuthoringTask.JIRA_UPDATED_FIELD)), Collections.<String>emptyList());
+		put(Profile.TASK_REQUEST, new LinkedHashSet<>(Arrays.asList("attachment", AuthoringTask.JIRA_UPDATED_FIELD)), Arrays.asList(crsIdField));
+	}
+
+	/**
+	 * @return the fields parameter for the profile, a comma separated list of field ids.
+	 */
+	public String getFields(Profile profile) {
+		return profiles.get(profile);
+	}
+
+	private void put(Profile profile, Set<String> fields, Collection<String> customFields) {
+		final Set<String> profileFields = new LinkedHashSet<>(fields);
+		for (String customField : customFields) {
+			if (customField == null) {
+				logger.warn("A custom field used by {} could not be resolved, all fields will be requested.", profile);
+				profiles.put(profile, ALL_FIELDS);
+				return;
+			}
+			profileFields.add(customField);
+		}
+		profiles.put(profile, String.join(",", profileFields));
+	}
+
+}
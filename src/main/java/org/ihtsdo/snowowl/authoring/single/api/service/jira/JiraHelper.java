@@ -9,8 +9,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 public class JiraHelper {
 
@@ -31,22 +32,24 @@ public class JiraHelper {
 		return null;
 	}
 
-	public static String fieldIdLookup(String fieldName, JiraClient client, Set<String> customFieldsSet) throws JiraException {
+	/**
+	 * Looks up the ids of many fields with a single listing of Jira's fields.
+	 * @return field ids keyed by field name, fields not found being left out
+	 */
+	public static Map<String, String> fieldIdLookup(Collection<String> fieldNames, JiraClient client) throws JiraException {
 		try {
-			String fieldId = null;
+			final Map<String, String> fieldIds = new HashMap<>();
 			final RestClient restClient = client.getRestClient();
 			final URI uri = restClient.buildURI("rest/api/latest/field");
 			final JSONArray fields = (JSONArray) restClient.get(uri);
 			for (int i = 0; i < fields.size(); i++) {
 				final JSONObject jsonObject = fields.getJSONObject(i);
-				if (fieldName.equals(jsonObject.getString("name"))) {
-					fieldId = jsonObject.getString("id");
+				final String fieldName = jsonObject.getString("name");
+				if (fieldNames.contains(fieldName)) {
+					fieldIds.put(fieldName, jsonObject.getString("id"));
 				}
 			}
-			if (customFieldsSet != null && fieldId != null) {
-				customFieldsSet.add(fieldId);
-			}
-			return fieldId;
+			return fieldIds;
 		} catch (IOException | URISyntaxException | RestException e) {
 			throw new JiraException("Failed to lookup field ID", e);
 		}
@@ -1,21 +1,57 @@
 package org.ihtsdo.snowowl.authoring.single.api.service.jira;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import net.rcarz.jiraclient.JiraClient;
 import net.rcarz.jiraclient.JiraException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Hands out impersonating Jira clients, keeping each user's client for reuse until it has been idle for a while.
+ * All clients share one pool of keep-alive connections so requests don't pay for a new connection and TLS handshake.
+ */
 public class OAuthJiraClientFactory implements ImpersonatingJiraClientFactory {
 
+	private static final int DEFAULT_MAX_CONNECTIONS = 100;
+	private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+	private static final int DEFAULT_CLIENT_EXPIRY_SECONDS = 30 * 60;
+	private static final int DEFAULT_STATS_INTERVAL_SECONDS = 5 * 60;
+
 	private final String jiraUrl;
 	private final String consumerKey;
 	private final PrivateKey privateKey;
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+	private final LoadingCache<String, JiraClient> clients;
+	private final int statsIntervalSeconds;
+	private final ScheduledExecutorService statsLogger = Executors.newSingleThreadScheduledExecutor();
 	private static final String UNIT_TEST = "UNIT_TEST";
 
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
 	public OAuthJiraClientFactory(String jiraUrl, String consumerKey, String privateKeyPath) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+		this(jiraUrl, consumerKey, privateKeyPath, DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+				DEFAULT_CLIENT_EXPIRY_SECONDS, DEFAULT_STATS_INTERVAL_SECONDS);
+	}
+
+	public OAuthJiraClientFactory(String jiraUrl, String consumerKey, String privateKeyPath, int maxConnections, int maxConnectionsPerRoute,
+			int clientExpirySeconds, int statsIntervalSeconds) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
 		this.jiraUrl = jiraUrl;
 		this.consumerKey = consumerKey;
 		if (!privateKeyPath.equals(UNIT_TEST)) {
@@ -23,6 +59,32 @@ public class OAuthJiraClientFactory implements ImpersonatingJiraClientFactory {
 		} else {
 			privateKey = null;
 		}
+		connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		httpClient = HttpClientBuilder.create().setConnectionManager(connectionManager).build();
+		clients = CacheBuilder.newBuilder()
+				.expireAfterAccess(clientExpirySeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build(new CacheLoader<String, JiraClient>() {
+					@Override
+					public JiraClient load(String username) throws JiraException {
+						return new JiraClient(httpClient, jiraUrl, new OAuthCredentials(username, consumerKey, privateKey));
+					}
+				});
+		this.statsIntervalSeconds = statsIntervalSeconds;
+	}
+
+	public void init() {
+		if (statsIntervalSeconds > 0) {
+			statsLogger.scheduleWithFixedDelay(this::logStats, statsIntervalSeconds, statsIntervalSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	public void shutdown() throws IOException {
+		statsLogger.shutdownNow();
+		clients.invalidateAll();
+		httpClient.close();
 	}
 
 	/**
@@ -32,10 +94,26 @@ public class OAuthJiraClientFactory implements ImpersonatingJiraClientFactory {
 	 */
 	public JiraClient getImpersonatingInstance(String username) {
 		try {
-			return new JiraClient(jiraUrl, new OAuthCredentials(username, consumerKey, privateKey));
-		} catch (JiraException e) {
-			throw new RuntimeException("Failed to create JiraClient.", e);
+			return clients.getUnchecked(username);
+		} catch (UncheckedExecutionException e) {
+			throw new RuntimeException("Failed to create JiraClient.", e.getCause());
 		}
 	}
 
+	public PoolStats getConnectionPoolStats() {
+		return connectionManager.getTotalStats();
+	}
+
+	public CacheStats getClientCacheStats() {
+		return clients.stats();
+	}
+
+	private void logStats() {
+		final PoolStats poolStats = getConnectionPoolStats();
+		final CacheStats cacheStats = getClientCacheStats();
+		logger.info("Jira connections leased {}, available {}, pending {}, max {}. Jira clients cached {}, hit rate {}, created {}.",
+				poolStats.getLeased(), poolStats.getAvailable(), poolStats.getPending(), poolStats.getMax(),
+				clients.size(), String.format("%.2f", cacheStats.hitRate()), cacheStats.loadSuccessCount());
+	}
+
 }
@@ -0,0 +1,75 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.otf.rest.exception.ProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Times the expression parser over a whole corpus of expressions.
+ * Run the main method from the test classpath, passing -prof gc to see allocation rates,
+ * and -p batchImportFile=&lt;path&gt; to time the expressions of a real batch import file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchImportExpressionBenchmark {
+
+	//A batch import file to take the expressions from, otherwise a generated corpus is used
+	@Param({""})
+	public String batchImportFile;
+
+	@Param({"5000"})
+	public int corpusSize;
+
+	private List<String> expressions;
+
+	@Setup
+	public void loadCorpus() throws IOException, BusinessServiceException {
+		List<String> corpus = batchImportFile.isEmpty() ? BatchImportExpressionCorpus.generate(corpusSize, 1L) : BatchImportExpressionCorpus.read(batchImportFile);
+		//Only time expressions the parser accepts, so failures don't cut runs short
+		expressions = new ArrayList<>();
+		for (String expression : corpus) {
+			try {
+				BatchImportExpression.parse(expression, null);
+				expressions.add(expression);
+			} catch (ProcessingException | RuntimeException e) {
+				//Rejected by the parser
+			}
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) throws ProcessingException {
+		for (String expression : expressions) {
+			blackhole.consume(BatchImportExpression.parse(expression, null));
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).include(BatchImportExpressionBenchmark.class.getSimpleName()).build()).run();
+	}
+}
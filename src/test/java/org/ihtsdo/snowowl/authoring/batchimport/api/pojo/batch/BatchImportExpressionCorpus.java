@@ -0,0 +1,186 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.BatchImportFormat;
+
+/**
+ * Expressions to check and benchmark the expression parsers against, either read from a batch import file
+ * or generated in the shapes seen in supplied import files: unterminated terms, commas inside terms,
+ * missing colons, ungrouped attributes ahead of groups and irregular spacing.
+ * Generated expressions come with the same expression written without terms or spaces, which must parse the same.
+ */
+class BatchImportExpressionCorpus {
+
+	private static final String[][] FOCUS_CONCEPTS = new String[][] {
+			{"64572001", "Disease"},
+			{"198609003", "Complication of pregnancy, childbirth and/or the puerperium"},
+			{"417746004", "Traumatic injury"},
+			{"133906008", "Postpartum care"},
+			{"41769001", "Disease suspected"}};
+
+	private static final String[][] ATTRIBUTE_TYPES = new String[][] {
+			{"363698007", "Finding site"},
+			{"116676008", "Associated morphology"},
+			{"246075003", "Causative agent"},
+			{"370135005", "Pathological process"},
+			{"260870009", "Priority"},
+			{"246090004", "Associated finding"}};
+
+	private static final String[][] ATTRIBUTE_VALUES = new String[][] {
+			{"53134007", "Structure of paraurethral ducts"},
+			{"367643001", "Cyst"},
+			{"113858008", "Mycobacterium tuberculosis complex"},
+			{"441862004", "Infectious process"},
+			{"45292006", "Vulval structure"},
+			{"23583003", "Inflammation"},
+			{"56208002", "Ulcer"},
+			{"43981004", "Structure of left ovary"},
+			{"24216005", "Congenital absence"},
+			{"20837000", "Structure of right ovary"},
+			{"373113001", "Routine"},
+			{"16726004", "Renal osteodystrophy"},
+			{"709044004", "Chronic kidney disease"}};
+
+	private final Random random;
+	private final StringBuilder expression = new StringBuilder();
+	private final StringBuilder bareExpression = new StringBuilder();
+
+	private BatchImportExpressionCorpus(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @return the same expressions every time for a given size and seed.
+	 */
+	static List<String> generate(int size, long seed) {
+		List<String> expressions = new ArrayList<>(size);
+		for (String[] pair : generateWithBareForms(size, seed)) {
+			expressions.add(pair[0]);
+		}
+		return expressions;
+	}
+
+	/**
+	 * @return pairs of each generated expression and the same expression without terms or spaces.
+	 */
+	static List<String[]> generateWithBareForms(int size, long seed) {
+		BatchImportExpressionCorpus corpus = new BatchImportExpressionCorpus(seed);
+		List<String[]> expressions = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			corpus.nextExpression();
+			expressions.add(new String[] {corpus.expression.toString(), corpus.bareExpression.toString()});
+		}
+		return expressions;
+	}
+
+	/**
+	 * @return the non blank expressions of a batch import file which defines its concepts by expression.
+	 */
+	static List<String> read(String batchImportFile) throws IOException, BusinessServiceException {
+		List<String> expressions = new ArrayList<>();
+		try (Reader reader = new FileReader(batchImportFile)) {
+			Iterator<CSVRecord> rows = CSVFormat.EXCEL.parse(reader).iterator();
+			BatchImportFormat format = BatchImportFormat.determineFormat(rows.next());
+			int expressionIdx = format.getIndex(BatchImportFormat.FIELD.EXPRESSION);
+			while (rows.hasNext()) {
+				CSVRecord row = rows.next();
+				if (row.size() > expressionIdx && !row.get(expressionIdx).trim().isEmpty()) {
+					expressions.add(row.get(expressionIdx).trim());
+				}
+			}
+		}
+		return expressions;
+	}
+
+	private void nextExpression() {
+		expression.setLength(0);
+		bareExpression.setLength(0);
+		append(random.nextBoolean() ? "===" : "<<<");
+		space();
+		concept(pick(FOCUS_CONCEPTS), true);
+		if (random.nextInt(5) == 0) {
+			expression.append(" + ");
+			bareExpression.append('+');
+			concept(pick(FOCUS_CONCEPTS), true);
+		}
+		int refinement = random.nextInt(10);
+		if (refinement < 2) {
+			return;
+		}
+		boolean groupsFollow = refinement >= 4;
+		if (refinement < 6 || random.nextInt(4) != 0) {
+			//Groups without a colon in front of them are seen often enough to be worth covering, ungrouped attributes always have one
+			append(":");
+			space();
+		}
+		if (refinement < 6) {
+			attributes(groupsFollow);
+			space();
+		}
+		if (groupsFollow) {
+			int groups = 1 + random.nextInt(4);
+			for (int i = 0; i < groups; i++) {
+				append("{");
+				space();
+				attributes(true);
+				append("}");
+				space();
+			}
+		}
+	}
+
+	private void attributes(boolean bounded) {
+		int attributes = 1 + random.nextInt(4);
+		for (int i = 0; i < attributes; i++) {
+			if (i > 0) {
+				expression.append(random.nextBoolean() ? ", " : " ,");
+				bareExpression.append(',');
+			}
+			concept(pick(ATTRIBUTE_TYPES), true);
+			expression.append(random.nextBoolean() ? " = " : "=");
+			bareExpression.append('=');
+			//An unterminated term is only safe where a group close or another attribute follows it
+			concept(pick(ATTRIBUTE_VALUES), bounded || i < attributes - 1);
+		}
+	}
+
+	private void concept(String[] concept, boolean unterminatedAllowed) {
+		append(concept[0]);
+		int term = random.nextInt(4);
+		if (term == 0) {
+			return;
+		}
+		expression.append(" | ").append(concept[1]);
+		if (term == 1 && unterminatedAllowed && concept[1].indexOf(',') == -1) {
+			expression.append(' ');
+		} else {
+			expression.append(" |");
+		}
+		space();
+	}
+
+	private void append(String syntax) {
+		expression.append(syntax);
+		bareExpression.append(syntax);
+	}
+
+	private void space() {
+		if (random.nextBoolean()) {
+			expression.append(' ');
+		}
+	}
+
+	private String[] pick(String[][] concepts) {
+		return concepts[random.nextInt(concepts.length)];
+	}
+}
@@ -1,8 +1,11 @@
 package org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.ihtsdo.otf.rest.client.snowowl.pojo.DefinitionStatus;
+import org.ihtsdo.otf.rest.client.snowowl.pojo.RelationshipPojo;
 import org.ihtsdo.otf.rest.exception.ProcessingException;
 import org.junit.Assert;
 import org.junit.Test;
@@ -10,65 +13,41 @@ import org.junit.Test;
 public class BatchImportExpressionTest {
 
 	@Test
-	public void testRemove() {
-		String expectedResult = "abc";
-		StringBuffer test1 = new StringBuffer("a b c");
-		BatchImportExpression.remove(test1, ' ');
-		Assert.assertEquals(test1.toString(), expectedResult);
-		
-		StringBuffer test2 = new StringBuffer("a  b c ");
-		BatchImportExpression.remove(test2, ' ');
-		Assert.assertEquals(test2.toString(), expectedResult);
+	public void testParseIgnoresSpaces() throws ProcessingException {
+		assertSameExpression("===64572001:363698007=53134007", "=== 64572001 :  363698007   =  53134007 ");
 	}
 	
 	@Test
-	public void testMakeMachineReadable() {
+	public void testParseIgnoresTerms() throws ProcessingException {
 		//Watch here that the final term is not properly terminated, as we see in the real data
 		String testExpression = "=== 64572001 | Disease |: { 363698007 | Finding site | = 53134007 | Structure of paraurethral ducts ," + 
 								"116676008 | Associated morphology | = 367643001 | Cyst}  ";
-		String expectedResult = "===64572001:{363698007=53134007,116676008=367643001}";
-		StringBuffer testBuff = new StringBuffer(testExpression);
-		BatchImportExpression.makeMachineReadable(testBuff);
-		Assert.assertEquals(testBuff.toString(), expectedResult);
-		
-		
+		assertSameExpression("===64572001:{363698007=53134007,116676008=367643001}", testExpression);
 	}
 	
 	@Test
-	public void testExtractDefinitionStatus() throws ProcessingException {
-		String testExpression = "===64572001:{363698007=53134007";
-		String expectedRemainder = "64572001:{363698007=53134007";
-		StringBuffer testBuff = new StringBuffer(testExpression);
-		DefinitionStatus defStatus = BatchImportExpression.extractDefinitionStatus(testBuff);
-		Assert.assertTrue(DefinitionStatus.FULLY_DEFINED.equals(defStatus));
-		Assert.assertEquals(testBuff.toString(), expectedRemainder);
+	public void testParseDefinitionStatus() throws ProcessingException {
+		Assert.assertEquals(DefinitionStatus.FULLY_DEFINED, BatchImportExpression.parse("===64572001:{363698007=53134007}", null).getDefinitionStatus());
+		Assert.assertEquals(DefinitionStatus.PRIMITIVE, BatchImportExpression.parse("<<<64572001:{363698007=53134007}", null).getDefinitionStatus());
 	}
 	
 	@Test
-	public void testExtractFocusConcepts() throws ProcessingException {
-		String testExpression = "198609003+276654001";
-		StringBuffer testBuff = new StringBuffer(testExpression);
-		List<String> focusConcepts = BatchImportExpression.extractFocusConcepts(testBuff);
-		Assert.assertTrue(focusConcepts.size() == 2);
-		Assert.assertTrue(testBuff.length() == 0);
-		Assert.assertEquals(focusConcepts.get(1), "276654001");
+	public void testParseFocusConcepts() throws ProcessingException {
+		BatchImportExpression exp = BatchImportExpression.parse("<<<198609003+276654001", null);
+		Assert.assertEquals(Arrays.asList("198609003", "276654001"), exp.getFocusConcepts());
+		Assert.assertTrue(exp.getAttributeGroups().isEmpty());
 		
-		String testExpression2 = "64572001:{363698007=53134007,116676008=367643001}";
-		String remainder = "{363698007=53134007,116676008=367643001}";
-		StringBuffer testBuff2 = new StringBuffer(testExpression2);
-		focusConcepts = BatchImportExpression.extractFocusConcepts(testBuff2);
-		Assert.assertTrue(focusConcepts.size() == 1);
-		Assert.assertEquals(focusConcepts.get(0), "64572001");
-		Assert.assertEquals(testBuff2.toString(), remainder);
+		exp = BatchImportExpression.parse("===64572001:{363698007=53134007,116676008=367643001}", null);
+		Assert.assertEquals(Collections.singletonList("64572001"), exp.getFocusConcepts());
+		Assert.assertTrue(exp.getAttributeGroups().size() == 1);
 	}
 	
 	@Test
-	public void testExtractGroups() throws ProcessingException {
-		String testExpression = "{363698007=38848004,116676008=24551003,246454002=255399007}";
+	public void testParseGroups() throws ProcessingException {
+		String testGroup = "{363698007=38848004,116676008=24551003,246454002=255399007}";
 		String expectedType = "246454002";
 		String expectedValue = "38848004";
-		StringBuffer testBuff = new StringBuffer(testExpression);
-		List<BatchImportGroup> groups = BatchImportExpression.extractGroups(testBuff, null);
+		List<BatchImportGroup> groups = BatchImportExpression.parse("===64572001:" + testGroup, null).getAttributeGroups();
 		Assert.assertTrue(groups.size()==1);
 		BatchImportGroup group = groups.get(0);
 		Assert.assertTrue(group.getGroupNumber() == 1);
@@ -76,9 +55,7 @@ public class BatchImportExpressionTest {
 		Assert.assertEquals(group.getRelationships().get(2).getType().getConceptId(), expectedType);
 		Assert.assertEquals(group.getRelationships().get(0).getTarget().getConceptId(), expectedValue);
 		
-		String testExpression2 = testExpression + testExpression + testExpression;
-		StringBuffer testBuff2 = new StringBuffer(testExpression2);
-		groups = BatchImportExpression.extractGroups(testBuff2, null);
+		groups = BatchImportExpression.parse("===64572001:" + testGroup + testGroup + testGroup, null).getAttributeGroups();
 		Assert.assertTrue(groups.size()==3);
 	}
 	
@@ -170,4 +147,57 @@ public class BatchImportExpressionTest {
 		Assert.assertTrue(groups.size() == 2);
 	}	
 	
+	@Test
+	public void testParseMatchesBareExpression() throws ProcessingException {
+		assertSameExpression("<<<198609003+417746004", "<<< 198609003 | Complication of pregnancy, childbirth and/or the puerperium  + 417746004 | Traumatic injury");
+		assertSameExpression("===64572001:246075003=113858008,370135005=441862004{363698007=45292006,116676008=56208002}",
+				"=== 64572001 | Disease | : 246075003 | Causative agent | = 113858008 , 370135005 = 441862004 {363698007 = 45292006, 116676008 = 56208002 | Ulcer}");
+		assertSameExpression("<<<41769001{246090004=16726004}{246090004=709044004}",
+				"<<< 41769001 | Disease suspected |  { 246090004 | Associated finding = 16726004 | Renal osteodystrophy } { 246090004 | Associated finding = 709044004 | Chronic kidney disease | }");
+		assertSameExpression("===64572001", "=== 64572001 | Disease |");
+	}
+
+	@Test
+	public void testParseMatchesBareExpressionOnCorpus() throws ProcessingException {
+		for (String[] pair : BatchImportExpressionCorpus.generateWithBareForms(1000, 1L)) {
+			assertSameExpression(pair[1], pair[0]);
+		}
+	}
+
+	@Test
+	public void testParseReportsEmptyAttribute() {
+		try {
+			BatchImportExpression.parse("=== 64572001 : { 363698007 = 53134007 , , 116676008 = 367643001 }", null);
+			Assert.fail("Expected empty attribute to be rejected");
+		} catch (ProcessingException e) {
+			Assert.assertEquals("Unable to detect type=value in attribute: , 116676008 = 367643001 }", e.getMessage());
+		}
+	}
+
+	private void assertSameExpression(String bareExpression, String testExpression) throws ProcessingException {
+		BatchImportExpression expected = BatchImportExpression.parse(bareExpression, "900000000000207008");
+		BatchImportExpression actual = BatchImportExpression.parse(testExpression, "900000000000207008");
+		Assert.assertEquals(testExpression, expected.getDefinitionStatus(), actual.getDefinitionStatus());
+		Assert.assertEquals(testExpression, expected.getFocusConcepts(), actual.getFocusConcepts());
+		Assert.assertEquals(testExpression, expected.getAttributeGroups().size(), actual.getAttributeGroups().size());
+		for (int groupIdx = 0; groupIdx < expected.getAttributeGroups().size(); groupIdx++) {
+			BatchImportGroup expectedGroup = expected.getAttributeGroups().get(groupIdx);
+			BatchImportGroup actualGroup = actual.getAttributeGroups().get(groupIdx);
+			Assert.assertEquals(testExpression, expectedGroup.getGroupNumber(), actualGroup.getGroupNumber());
+			Assert.assertEquals(testExpression, expectedGroup.getRelationships().size(), actualGroup.getRelationships().size());
+			for (int relIdx = 0; relIdx < expectedGroup.getRelationships().size(); relIdx++) {
+				RelationshipPojo expectedRel = expectedGroup.getRelationships().get(relIdx);
+				RelationshipPojo actualRel = actualGroup.getRelationships().get(relIdx);
+				Assert.assertEquals(testExpression, expectedRel.getRelationshipId(), actualRel.getRelationshipId());
+				Assert.assertEquals(testExpression, expectedRel.getType().getConceptId(), actualRel.getType().getConceptId());
+				Assert.assertEquals(testExpression, expectedRel.getTarget().getConceptId(), actualRel.getTarget().getConceptId());
+			}
+		}
+	}
+
+	@Test(expected = ProcessingException.class)
+	public void testParseRejectsUnclosedGroupAfterUngroupedAttributes() throws ProcessingException {
+		BatchImportExpression.parse("=== 64572001 : 363698007 = 53134007 { 116676008 = 367643001", null);
+	}
+	
 }
@@ -0,0 +1,72 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportCheckpoint;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportRequest;
+import org.ihtsdo.snowowl.authoring.batchimport.api.pojo.batch.BatchImportRun;
+import org.ihtsdo.snowowl.authoring.batchimport.api.service.file.dao.ArbitraryTempFileService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchImportCheckpointStoreTest {
+
+	private static final String PROJECT_KEY = "CHECKPOINTTEST";
+
+	private final BatchImportCheckpointStore store = new BatchImportCheckpointStore();
+	private final UUID batchImportId = UUID.randomUUID();
+	private BatchImportRun run;
+
+	@Before
+	public void setUp() throws IOException, BusinessServiceException {
+		BatchImportRequest importRequest = new BatchImportRequest();
+		importRequest.setProjectKey(PROJECT_KEY);
+		importRequest.setCreateForAuthor("author");
+		importRequest.setConceptsPerTask(3);
+		store.saveRequest(batchImportId, importRequest, "importer");
+		store.storeImportFile(PROJECT_KEY, batchImportId, new ByteArrayInputStream("header\n".getBytes("UTF-8")));
+		run = BatchImportRun.createRun(batchImportId, importRequest);
+	}
+
+	@After
+	public void tearDown() {
+		store.clear(PROJECT_KEY, batchImportId);
+	}
+
+	@Test
+	public void testJournalRecordsTheRowsOfEachTask() throws IOException {
+		store.taskCreated(run, "CHECKPOINTTEST-1", Arrays.asList(2L, 3L, 4L));
+		store.rowLoaded(run, 2L, "100005", "CHECKPOINTTEST-1");
+		//As left by a crash part way through writing the entry
+		new ArbitraryTempFileService("batch_import_checkpoint").append(PROJECT_KEY + "/" + batchImportId + "/journal.csv", "task,CHECKPOINTTEST-2,2,5 ");
+
+		BatchImportCheckpoint checkpoint = store.loadCheckpoint(PROJECT_KEY, batchImportId);
+		Assert.assertEquals(Collections.singleton("CHECKPOINTTEST-1"), checkpoint.getTasksCreated());
+		Assert.assertEquals("CHECKPOINTTEST-1", checkpoint.getAssignedTask(4L));
+		Assert.assertNull(checkpoint.getAssignedTask(5L));
+		Assert.assertTrue(checkpoint.isLoaded(2L));
+		Assert.assertFalse(checkpoint.isLoaded(3L));
+		Assert.assertEquals("importer", store.loadStartedBy(PROJECT_KEY, batchImportId));
+	}
+
+	@Test
+	public void testJournalRecordsTasksHandedOver() throws IOException {
+		store.taskCreated(run, "CHECKPOINTTEST-1", Arrays.asList(2L, 3L));
+		store.taskCreated(run, "CHECKPOINTTEST-2", Arrays.asList(4L));
+		store.taskCompleted(run, "CHECKPOINTTEST-1");
+		//As left by a crash part way through writing the entry
+		new ArbitraryTempFileService("batch_import_checkpoint").append(PROJECT_KEY + "/" + batchImportId + "/journal.csv", "completed,CHECKPOINTTEST-");
+
+		BatchImportCheckpoint checkpoint = store.loadCheckpoint(PROJECT_KEY, batchImportId);
+		Assert.assertTrue(checkpoint.isCompleted("CHECKPOINTTEST-1"));
+		Assert.assertFalse(checkpoint.isCompleted("CHECKPOINTTEST-2"));
+		Assert.assertFalse(checkpoint.isCompleted("CHECKPOINTTEST-"));
+	}
+}
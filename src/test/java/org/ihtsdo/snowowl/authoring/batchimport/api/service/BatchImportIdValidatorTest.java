@@ -0,0 +1,79 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.ihtsdo.otf.rest.exception.BusinessServiceException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchImportIdValidatorTest {
+
+	@Test
+	public void testVerhoeffCheck() {
+		Assert.assertTrue(VerhoeffCheck.isValid("64572001"));
+		Assert.assertTrue(VerhoeffCheck.validateLastChecksumDigit("64572001"));
+		Assert.assertEquals('1', VerhoeffCheck.calculateChecksum("6457200", false));
+		Assert.assertFalse(VerhoeffCheck.isValid("64572002"));
+		Assert.assertFalse(VerhoeffCheck.isValid("6457200x"));
+		Assert.assertFalse(VerhoeffCheck.isValid(""));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testVerhoeffCheckRejectsNonDigits() {
+		VerhoeffCheck.validateLastChecksumDigit("64 72001");
+	}
+
+	@Test
+	public void testCheckConceptId() {
+		Assert.assertNull(BatchImportIdValidator.checkConceptId("64572001"));
+		//Long format, namespace 1000036
+		Assert.assertNull(BatchImportIdValidator.checkConceptId("32570211000036100"));
+
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("64572002"));
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("12345"));
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("1234567890123456789"));
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("06457202"));
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId(" 64572001"));
+		//Description partition
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("12345013"));
+		//Long format without room for a namespace
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("123106"));
+		//Long format with a zero namespace
+		Assert.assertNotNull(BatchImportIdValidator.checkConceptId("1230000000104"));
+	}
+
+	@Test
+	public void testValidateIdColumns() throws IOException, BusinessServiceException {
+		String file = String.join(",", BatchImportFormat.LOINC_HEADERS) + "\n"
+				+ row("NEW_SCTID", "64572001", "") + "\n"
+				+ row("", "64572001", "") + "\n"
+				+ row("NEW_SCTID", "64572002", "") + "\n"
+				+ row("NEW_SCTID", "64572001", "12345013") + "\n"
+				+ row("NEW_SCTID", "64572001", "32570211000036100") + "\n";
+		Iterator<CSVRecord> records = CSVFormat.EXCEL.parse(new StringReader(file)).iterator();
+		BatchImportFormat format = BatchImportFormat.determineFormat(records.next());
+		List<CSVRecord> rows = Arrays.asList(records.next(), records.next(), records.next(), records.next(), records.next());
+
+		Map<Long, String> failures = new BatchImportIdValidator(format).validate(rows);
+		Assert.assertEquals(3, failures.size());
+		Assert.assertTrue(failures.get(3L).startsWith("row_3 is not a valid sctid"));
+		Assert.assertTrue(failures.get(4L).startsWith("64572002 is not a valid parent identifier"));
+		Assert.assertTrue(failures.get(5L).startsWith("12345013 is not a valid second parent identifier"));
+	}
+
+	private String row(String sctid, String parent1, String parent2) {
+		String[] columns = new String[BatchImportFormat.LOINC_HEADERS.length];
+		Arrays.fill(columns, "");
+		columns[0] = sctid;
+		columns[1] = parent1;
+		columns[2] = parent2;
+		return String.join(",", columns);
+	}
+}
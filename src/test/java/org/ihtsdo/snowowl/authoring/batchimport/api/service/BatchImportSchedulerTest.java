@@ -0,0 +1,73 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchImportSchedulerTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final BatchImportScheduler scheduler = new BatchImportScheduler(1, 1);
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void testQueuePositionIsFairAcrossProjects() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		scheduler.submit("BIG", UUID.randomUUID(), () -> {
+			started.countDown();
+			awaitRelease();
+		});
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		UUID big2 = UUID.randomUUID();
+		UUID big3 = UUID.randomUUID();
+		UUID small1 = UUID.randomUUID();
+		scheduler.submit("BIG", big2, this::awaitRelease);
+		scheduler.submit("BIG", big3, this::awaitRelease);
+		scheduler.submit("SMALL", small1, this::awaitRelease);
+
+		//The small project's import is served before the big project's second queued import
+		Assert.assertEquals(Integer.valueOf(1), scheduler.getQueuePosition(big2));
+		Assert.assertEquals(Integer.valueOf(2), scheduler.getQueuePosition(small1));
+		Assert.assertEquals(Integer.valueOf(3), scheduler.getQueuePosition(big3));
+		Assert.assertNull(scheduler.getQueuePosition(UUID.randomUUID()));
+	}
+
+	@Test
+	public void testQueuePositionRespectsProjectLimit() {
+		BatchImportScheduler limited = new BatchImportScheduler(2, 1);
+		try {
+			limited.submit("A", UUID.randomUUID(), this::awaitRelease);
+			limited.submit("B", UUID.randomUUID(), this::awaitRelease);
+
+			UUID b2 = UUID.randomUUID();
+			UUID a2 = UUID.randomUUID();
+			limited.submit("B", b2, this::awaitRelease);
+			limited.submit("A", a2, this::awaitRelease);
+
+			//Project A's import started first so frees the first slot, which only A's queued import may take
+			Assert.assertEquals(Integer.valueOf(1), limited.getQueuePosition(a2));
+			Assert.assertEquals(Integer.valueOf(2), limited.getQueuePosition(b2));
+		} finally {
+			release.countDown();
+			limited.shutdown();
+		}
+	}
+
+	private void awaitRelease() {
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
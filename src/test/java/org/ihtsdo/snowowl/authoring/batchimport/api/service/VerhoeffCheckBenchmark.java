@@ -0,0 +1,95 @@
+package org.ihtsdo.snowowl.authoring.batchimport.api.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the table driven Verhoeff check with the original implementation, which copied each
+ * code and reported bad characters by exception.
+ * Run the main method from the test classpath, adding -prof gc to the options to see allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerhoeffCheckBenchmark {
+
+	//Valid and invalid identifiers in the proportions seen in supplied files
+	private final String[] sctids = new String[] {
+			"64572001", "363698007", "116676008", "32570211000036100", "441862004",
+			"64572002", "NEW_SCTID", "45292006", "", "23583003"
+	};
+
+	private static final char[][] D_TABLE = new char[][] {
+			{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, { 1, 2, 3, 4, 0, 6, 7, 8, 9, 5 },
+			{ 2, 3, 4, 0, 1, 7, 8, 9, 5, 6 }, { 3, 4, 0, 1, 2, 8, 9, 5, 6, 7 },
+			{ 4, 0, 1, 2, 3, 9, 5, 6, 7, 8 }, { 5, 9, 8, 7, 6, 0, 4, 3, 2, 1 },
+			{ 6, 5, 9, 8, 7, 1, 0, 4, 3, 2 }, { 7, 6, 5, 9, 8, 2, 1, 0, 4, 3 },
+			{ 8, 7, 6, 5, 9, 3, 2, 1, 0, 4 }, { 9, 8, 7, 6, 5, 4, 3, 2, 1, 0 } };
+	private static final char[][] P_TABLE = new char[][] {
+			{ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, { 1, 5, 7, 6, 2, 8, 3, 0, 9, 4 },
+			{ 5, 8, 0, 3, 7, 9, 6, 1, 4, 2 }, { 8, 9, 1, 6, 0, 4, 3, 5, 2, 7 },
+			{ 9, 4, 5, 3, 1, 2, 6, 8, 7, 0 }, { 4, 2, 8, 6, 5, 7, 3, 9, 0, 1 },
+			{ 2, 7, 9, 3, 8, 0, 6, 4, 1, 5 }, { 7, 0, 4, 6, 9, 1, 3, 2, 5, 8 } };
+	private static final char[] INV_TABLE = new char[] { 0, 4, 3, 2, 1, 5, 6, 7, 8, 9 };
+
+	@Benchmark
+	public void tableDriven(Blackhole blackhole) {
+		for (String sctid : sctids) {
+			blackhole.consume(VerhoeffCheck.isValid(sctid));
+		}
+	}
+
+	@Benchmark
+	public void conceptIdCheck(Blackhole blackhole) {
+		for (String sctid : sctids) {
+			blackhole.consume(BatchImportIdValidator.checkConceptId(sctid));
+		}
+	}
+
+	@Benchmark
+	public void original(Blackhole blackhole) {
+		for (String sctid : sctids) {
+			boolean valid;
+			try {
+				valid = originalValidate(sctid);
+			} catch (Exception e) {
+				valid = false;
+			}
+			blackhole.consume(valid);
+		}
+	}
+
+	private static boolean originalValidate(CharSequence code) {
+		final CharSequence idHead = code.subSequence(0, code.length() - 1);
+		char checksum = 0;
+		for (int i = 0; i < idHead.length(); i++) {
+			int pos = idHead.length() - (i + 1);
+			final int num = Character.getNumericValue(idHead.charAt(pos));
+			if (num < 0 || num > 9) {
+				throw new IllegalArgumentException(String.format("Invalid Character '%s' at position %d in %s", idHead.charAt(pos), pos, idHead));
+			}
+			checksum = D_TABLE[checksum][P_TABLE[(i + 1) % 8][num]];
+		}
+		return code.charAt(code.length() - 1) == Character.forDigit(INV_TABLE[checksum], 10);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(VerhoeffCheckBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,82 @@
+package org.ihtsdo.snowowl.authoring.single.api.rest;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.ihtsdo.snowowl.authoring.single.api.pojo.AuthoringTask;
+import org.ihtsdo.snowowl.authoring.single.api.service.ListingETagService;
+import org.ihtsdo.snowowl.authoring.single.api.service.TaskService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ProjectControllerTest {
+
+	private static final String PROJECT_KEY = "PROJ";
+
+	private final ProjectController controller = new ProjectController();
+	private final TaskService taskService = Mockito.mock(TaskService.class);
+	private final ListingETagService listingETagService = new ListingETagService();
+
+	@Before
+	public void setUp() throws Exception {
+		ReflectionTestUtils.setField(listingETagService, "etagTrustSeconds", 60L);
+		ReflectionTestUtils.setField(listingETagService, "maxIssuedETags", 100L);
+		listingETagService.init();
+		ReflectionTestUtils.setField(controller, "taskService", taskService);
+		ReflectionTestUtils.setField(controller, "listingETagService", listingETagService);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("author", ""));
+
+		AuthoringTask task = new AuthoringTask();
+		task.setKey(PROJECT_KEY + "-1");
+		Mockito.when(taskService.listTasks(PROJECT_KEY)).thenReturn(Collections.singletonList(task));
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testTrustedETagIsAnsweredWithoutTaskService() throws Exception {
+		ResponseEntity<List<AuthoringTask>> listing = controller.listTasks(PROJECT_KEY, listTasksRequest(null));
+		Assert.assertEquals(HttpStatus.OK, listing.getStatusCode());
+		String etag = listing.getHeaders().getETag();
+		Assert.assertNotNull(etag);
+
+		ResponseEntity<List<AuthoringTask>> notModified = controller.listTasks(PROJECT_KEY, listTasksRequest(etag));
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+		Assert.assertEquals(etag, notModified.getHeaders().getETag());
+		Mockito.verify(taskService, Mockito.times(1)).listTasks(PROJECT_KEY);
+	}
+
+	@Test
+	public void testChangeInProjectRebuildsListing() throws Exception {
+		String etag = controller.listTasks(PROJECT_KEY, listTasksRequest(null)).getHeaders().getETag();
+
+		listingETagService.changed(PROJECT_KEY);
+
+		//Nothing in the listing itself has changed, so once rebuilt it is still not modified
+		ResponseEntity<List<AuthoringTask>> rebuilt = controller.listTasks(PROJECT_KEY, listTasksRequest(etag));
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, rebuilt.getStatusCode());
+		Mockito.verify(taskService, Mockito.times(2)).listTasks(PROJECT_KEY);
+	}
+
+	private MockHttpServletRequest listTasksRequest(String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/projects/" + PROJECT_KEY + "/tasks");
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return request;
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import java.util.Arrays;
+
+import org.ihtsdo.otf.rest.client.snowowl.pojo.Branch;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class BranchLookupTest {
+
+	private final BranchService branchService = Mockito.mock(BranchService.class);
+	private final BranchLookup lookup = new BranchLookup(branchService);
+
+	@Test
+	public void testPrefetchedChildrenAreAnsweredFromMemory() throws ServiceException {
+		Mockito.when(branchService.getChildBranches("MAIN/PROJ")).thenReturn(Arrays.asList(branch("MAIN/PROJ/PROJ-1"), branch("MAIN/PROJ/PROJ-2")));
+
+		lookup.prefetchChildren("MAIN/PROJ");
+		lookup.prefetchChildren("MAIN/PROJ");
+
+		Assert.assertEquals("MAIN/PROJ/PROJ-1", lookup.getBranchOrNull("MAIN/PROJ/PROJ-1").getPath());
+		Assert.assertEquals("MAIN/PROJ/PROJ-2", lookup.getBranchOrNull("MAIN/PROJ/PROJ-2").getPath());
+		//Not among the children, so the task branch doesn't exist yet
+		Assert.assertNull(lookup.getBranchOrNull("MAIN/PROJ/PROJ-3"));
+		Mockito.verify(branchService, Mockito.times(1)).getChildBranches("MAIN/PROJ");
+		Mockito.verify(branchService, Mockito.never()).getBranchOrNull(Mockito.anyString());
+	}
+
+	@Test
+	public void testOtherBranchesAreFetchedOnce() throws ServiceException {
+		Mockito.when(branchService.getBranchOrNull("MAIN/OTHER/OTHER-1")).thenReturn(branch("MAIN/OTHER/OTHER-1"));
+
+		Assert.assertEquals("MAIN/OTHER/OTHER-1", lookup.getBranchOrNull("MAIN/OTHER/OTHER-1").getPath());
+		Assert.assertEquals("MAIN/OTHER/OTHER-1", lookup.getBranchOrNull("MAIN/OTHER/OTHER-1").getPath());
+		Assert.assertNull(lookup.getBranchOrNull("MAIN/OTHER/OTHER-2"));
+		Assert.assertNull(lookup.getBranchOrNull("MAIN/OTHER/OTHER-2"));
+		Mockito.verify(branchService, Mockito.times(1)).getBranchOrNull("MAIN/OTHER/OTHER-1");
+		Mockito.verify(branchService, Mockito.times(1)).getBranchOrNull("MAIN/OTHER/OTHER-2");
+		Mockito.verify(branchService, Mockito.never()).getChildBranches(Mockito.anyString());
+	}
+
+	private Branch branch(String path) {
+		Branch branch = Mockito.mock(Branch.class);
+		Mockito.when(branch.getPath()).thenReturn(path);
+		return branch;
+	}
+
+}
@@ -0,0 +1,71 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import java.util.List;
+
+import org.ihtsdo.otf.rest.client.snowowl.pojo.Branch;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.match.MockRestRequestMatchers;
+import org.springframework.test.web.client.response.MockRestResponseCreators;
+import org.springframework.web.client.RestTemplate;
+
+public class BranchServiceTest {
+
+	private final BranchService branchService = new BranchService();
+	private MockRestServiceServer snowOwl;
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(branchService, "snowOwlUrl", "http://localhost/snowowl/");
+		ReflectionTestUtils.setField(branchService, "branchesPath", "snomed-ct/v2/branches/");
+		ReflectionTestUtils.setField(branchService, "connectTimeoutMillis", 1000);
+		ReflectionTestUtils.setField(branchService, "readTimeoutMillis", 1000);
+		ReflectionTestUtils.setField(branchService, "metadataCacheSeconds", 60L);
+		ReflectionTestUtils.setField(branchService, "metadataCacheSize", 100L);
+		branchService.init();
+		snowOwl = MockRestServiceServer.createServer((RestTemplate) ReflectionTestUtils.getField(branchService, "restTemplate"));
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("author", "dev-ims-ihtsdo=token"));
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testChildBranchesLeaveOutDeeperDescendants() throws ServiceException {
+		//As answered by Snow Owl versions which ignore immediateChildren
+		snowOwl.expect(MockRestRequestMatchers.requestTo("http://localhost/snowowl/snomed-ct/v2/branches/MAIN/PROJ/children?immediateChildren=true"))
+				.andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+				.andRespond(MockRestResponseCreators.withSuccess("{\"items\":["
+						+ "{\"path\":\"MAIN/PROJ/PROJ-1\",\"state\":\"UP_TO_DATE\"},"
+						+ "{\"path\":\"MAIN/PROJ/PROJ-1/REVIEW\",\"state\":\"FORWARD\"},"
+						+ "{\"path\":\"MAIN/PROJ/PROJ-2\",\"state\":\"BEHIND\"}"
+						+ "],\"total\":3}", MediaType.APPLICATION_JSON));
+
+		List<Branch> children = branchService.getChildBranches("MAIN/PROJ");
+
+		snowOwl.verify();
+		Assert.assertEquals(2, children.size());
+		Assert.assertEquals("MAIN/PROJ/PROJ-1", children.get(0).getPath());
+		Assert.assertEquals("UP_TO_DATE", children.get(0).getState());
+		Assert.assertEquals("MAIN/PROJ/PROJ-2", children.get(1).getPath());
+	}
+
+	@Test(expected = ServiceException.class)
+	public void testFailedChildBranchRequest() throws ServiceException {
+		snowOwl.expect(MockRestRequestMatchers.requestTo("http://localhost/snowowl/snomed-ct/v2/branches/MAIN/PROJ/children?immediateChildren=true"))
+				.andRespond(MockRestResponseCreators.withServerError());
+
+		branchService.getChildBranches("MAIN/PROJ");
+	}
+
+}
@@ -0,0 +1,32 @@
+package org.ihtsdo.snowowl.authoring.single.api.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ListingETagServiceTest {
+
+	@Test
+	public void testMatches() {
+		Assert.assertTrue(ListingETagService.matches("\"abc\"", "\"abc\""));
+		Assert.assertTrue(ListingETagService.matches("W/\"abc\"", "\"abc\""));
+		Assert.assertTrue(ListingETagService.matches("\"xyz\", \"abc\"", "\"abc\""));
+		Assert.assertTrue(ListingETagService.matches("*", "\"abc\""));
+		Assert.assertFalse(ListingETagService.matches("\"xyz\"", "\"abc\""));
+		Assert.assertFalse(ListingETagService.matches("abc", "\"abc\""));
+	}
+
+	@Test
+	public void testGenerations() {
+		final ListingETagService service = new ListingETagService();
+		final long projectA = service.getGeneration("A");
+		final long projectB = service.getGeneration("B");
+		final long allProjects = service.getGeneration(null);
+
+		service.changed("A");
+
+		Assert.assertNotEquals(projectA, service.getGeneration("A"));
+		Assert.assertEquals(projectB, service.getGeneration("B"));
+		Assert.assertNotEquals(allProjects, service.getGeneration(null));
+	}
+
+}